@@ -0,0 +1,239 @@
+package com.abap.assistant.bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.prefs.Preferences;
+
+import com.abap.assistant.services.AutoCodeModificationService;
+import com.abap.assistant.services.ChatGPTService;
+import com.abap.assistant.services.DocumentContextManager;
+import com.abap.assistant.services.EnhancedAutoModificationService;
+import com.abap.assistant.services.HttpClientPool;
+import com.abap.assistant.utils.ConfigurationManager;
+
+/**
+ * End-to-end latency benchmark of the AI request paths against OpenAIStubServer
+ * Reports p50/p95/p99 latency and throughput per scenario
+ *
+ * Options: --requests N --warmup N --concurrency N --latency MS --tokens-per-second N
+ *          --response-tokens N --error-rate R --error-status CODE --rate-limit RPM
+ */
+public class ChatLatencyBenchmark {
+
+    private static final String PREFERENCES_NODE = "com/abap/assistant/benchmark";
+
+    private static final String SAMPLE_CODE =
+        "REPORT z_sales_report.\n" +
+        "DATA: lt_vbak TYPE TABLE OF vbak,\n" +
+        "      ls_vbak TYPE vbak.\n" +
+        "SELECT * FROM vbak INTO TABLE lt_vbak.\n" +
+        "LOOP AT lt_vbak INTO ls_vbak.\n" +
+        "  SELECT SINGLE * FROM vbap INTO @DATA(ls_vbap) WHERE vbeln = @ls_vbak-vbeln.\n" +
+        "  WRITE: / ls_vbak-vbeln, ls_vbap-matnr.\n" +
+        "ENDLOOP.\n";
+
+    private int requests = 200;
+    private int warmup = 20;
+    private int concurrency = 4;
+    private long latencyMillis = 50;
+    private int tokensPerSecond = 500;
+    private int responseTokens = 64;
+    private double errorRate;
+    private int errorStatus = 429;
+    private int rateLimit;
+
+    public static void main(String[] args) throws Exception {
+        ChatLatencyBenchmark benchmark = new ChatLatencyBenchmark();
+        benchmark.parseArgs(args);
+        benchmark.run();
+    }
+
+    private void parseArgs(String[] args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--requests": requests = Integer.parseInt(value); break;
+                case "--warmup": warmup = Integer.parseInt(value); break;
+                case "--concurrency": concurrency = Integer.parseInt(value); break;
+                case "--latency": latencyMillis = Long.parseLong(value); break;
+                case "--tokens-per-second": tokensPerSecond = Integer.parseInt(value); break;
+                case "--response-tokens": responseTokens = Integer.parseInt(value); break;
+                case "--error-rate": errorRate = Double.parseDouble(value); break;
+                case "--error-status": errorStatus = Integer.parseInt(value); break;
+                case "--rate-limit": rateLimit = Integer.parseInt(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+    }
+
+    private void run() throws Exception {
+        OpenAIStubServer stub = new OpenAIStubServer(0)
+            .withLatency(latencyMillis)
+            .withTokensPerSecond(tokensPerSecond)
+            .withResponseTokens(responseTokens)
+            .withErrors(errorRate, errorStatus)
+            .start();
+
+        // Must be set before ConfigurationManager is first used
+        System.setProperty(ConfigurationManager.API_URL_PROPERTY, stub.getUrl());
+        System.setProperty(ConfigurationManager.PREFERENCES_NODE_PROPERTY, PREFERENCES_NODE);
+        ConfigurationManager config = ConfigurationManager.getInstance();
+        config.setApiKey("sk-benchmark");
+        config.setResponseCacheEnabled(false); // Every request must reach the stub
+        config.setRateLimitRequestsPerMinute(rateLimit);
+
+        System.out.printf(Locale.ROOT, "Stub %s: latency %d ms, %d tokens/s, %d tokens, error rate %.2f%n",
+            stub.getUrl(), latencyMillis, tokensPerSecond, responseTokens, errorRate);
+        System.out.printf(Locale.ROOT, "%d requests, %d warmup, concurrency %d%n%n", requests, warmup, concurrency);
+        System.out.printf(Locale.ROOT, "%-44s %9s %9s %9s %9s %10s %7s%n",
+            "Scenario", "p50 ms", "p95 ms", "p99 ms", "max ms", "req/s", "errors");
+
+        try {
+            runScenario("ChatGPTService.sendMessage", () -> {
+                ChatGPTService service = new ChatGPTService();
+                return () -> {
+                    service.clearHistory();
+                    service.sendMessage("Explain this code:\n" + SAMPLE_CODE);
+                };
+            });
+
+            runScenario("ChatGPTService.sendMessageStreaming", () -> {
+                ChatGPTService service = new ChatGPTService();
+                return () -> {
+                    service.clearHistory();
+                    service.sendMessageStreaming("Explain this code:\n" + SAMPLE_CODE, delta -> { });
+                };
+            });
+
+            runScenario("ChatGPTService.sendMessageWithDocumentContext", () -> {
+                ChatGPTService service = new ChatGPTService();
+                DocumentContextManager contextManager = new DocumentContextManager();
+                contextManager.addDocument("functional-spec.txt", createSpecification(200));
+                return () -> {
+                    service.clearHistory();
+                    service.sendMessageWithDocumentContext("Does this code follow the spec?", SAMPLE_CODE, contextManager);
+                };
+            });
+
+            runScenario("AutoCodeModificationService.generateFixedCode", () -> {
+                AutoCodeModificationService service = new AutoCodeModificationService();
+                return () -> requireCode(service.generateFixedCode(SAMPLE_CODE));
+            });
+
+            runScenario("EnhancedAutoModificationService.generateOptimizedCode", () -> {
+                EnhancedAutoModificationService service = new EnhancedAutoModificationService();
+                return () -> requireCode(service.generateOptimizedCode(SAMPLE_CODE));
+            });
+
+            System.out.println();
+            System.out.println(HttpClientPool.getShared().getStatsSummary());
+            System.out.printf("Stub: %d requests, %d injected errors%n", stub.getRequestCount(), stub.getErrorCount());
+        } finally {
+            ChatGPTService.shutdownExecutors();
+            HttpClientPool.getShared().shutdown();
+            stub.stop();
+            Preferences.userRoot().node(PREFERENCES_NODE).removeNode();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Call {
+        void execute() throws Exception;
+    }
+
+    /**
+     * Creates the per-thread client state and returns the call to measure
+     */
+    @FunctionalInterface
+    private interface CallFactory {
+        Call create() throws Exception;
+    }
+
+    private void runScenario(String name, CallFactory factory) throws Exception {
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        try {
+            // One client per worker, as each view/handler owns its own service instance
+            List<Call> calls = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                calls.add(factory.create());
+            }
+
+            execute(workers, calls, warmup, null);
+
+            long[] latencies = new long[requests];
+            long start = System.nanoTime();
+            int errors = execute(workers, calls, requests, latencies);
+            double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+            Arrays.sort(latencies);
+            System.out.printf(Locale.ROOT, "%-44s %9.1f %9.1f %9.1f %9.1f %10.1f %7d%n", name,
+                percentile(latencies, 0.50), percentile(latencies, 0.95), percentile(latencies, 0.99),
+                latencies.length > 0 ? latencies[latencies.length - 1] / 1e6 : 0.0,
+                requests / elapsedSeconds, errors);
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Run the requests across the workers
+     * @return Number of failed requests
+     */
+    private int execute(ExecutorService workers, List<Call> calls, int count, long[] latencies) throws Exception {
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (Call call : calls) {
+            futures.add(workers.submit(() -> {
+                int index;
+                while ((index = next.getAndIncrement()) < count) {
+                    long begin = System.nanoTime();
+                    try {
+                        call.execute();
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                    if (latencies != null) {
+                        latencies[index] = System.nanoTime() - begin;
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.MINUTES);
+        }
+        return errors.get();
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+
+    private static void requireCode(String code) {
+        if (code == null) {
+            throw new IllegalStateException("No ABAP code in response");
+        }
+    }
+
+    private static String createSpecification(int paragraphs) {
+        StringBuilder spec = new StringBuilder();
+        for (int i = 1; i <= paragraphs; i++) {
+            spec.append("Requirement ").append(i)
+                .append(": sales orders of company code 1000 must be read with an explicit field list, ")
+                .append("items are selected FOR ALL ENTRIES of the headers and totals are shown per customer.\n");
+        }
+        return spec.toString();
+    }
+}
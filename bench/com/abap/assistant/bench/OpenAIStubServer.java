@@ -0,0 +1,265 @@
+package com.abap.assistant.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * In-process stand-in for the OpenAI /v1/chat/completions endpoint
+ * Simulates time to first token, token generation rate, SSE streaming and transient errors
+ * so ChatGPTService can be measured without API credit
+ */
+public class OpenAIStubServer {
+
+    public static final String COMPLETIONS_PATH = "/v1/chat/completions";
+
+    // Each "token" of the canned reply - valid ABAP so the auto-modification services accept it
+    private static final String[] REPLY_LINES = {
+        "DATA lv_count TYPE i.",
+        "DATA lt_data TYPE STANDARD TABLE OF mara.",
+        "SELECT matnr mtart FROM mara INTO CORRESPONDING FIELDS OF TABLE lt_data UP TO 100 ROWS.",
+        "LOOP AT lt_data INTO DATA(ls_data).",
+        "  lv_count = lv_count + 1.",
+        "ENDLOOP.",
+        "WRITE: / lv_count."
+    };
+
+    private final int port;
+    private long latencyMillis = 50;
+    private int tokensPerSecond = 500;
+    private int responseTokens = 64;
+    private double errorRate;
+    private int errorStatus = 429;
+
+    private final Random random = new Random(42);
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+    private final AtomicLong streamedCount = new AtomicLong();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * @param port TCP port, 0 picks a free one
+     */
+    public OpenAIStubServer(int port) {
+        this.port = port;
+    }
+
+    /**
+     * Delay before the first byte of the response (model queueing + prompt processing)
+     */
+    public OpenAIStubServer withLatency(long millis) {
+        this.latencyMillis = millis;
+        return this;
+    }
+
+    /**
+     * Generation speed, 0 or less sends all tokens at once
+     */
+    public OpenAIStubServer withTokensPerSecond(int tokensPerSecond) {
+        this.tokensPerSecond = tokensPerSecond;
+        return this;
+    }
+
+    public OpenAIStubServer withResponseTokens(int responseTokens) {
+        this.responseTokens = Math.max(1, responseTokens);
+        return this;
+    }
+
+    /**
+     * Fraction of requests answered with the given error status (and Retry-After: 0)
+     */
+    public OpenAIStubServer withErrors(double errorRate, int errorStatus) {
+        this.errorRate = errorRate;
+        this.errorStatus = errorStatus;
+        return this;
+    }
+
+    public synchronized OpenAIStubServer start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "OpenAI stub");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext(COMPLETIONS_PATH, this::handle);
+        server.start();
+        return this;
+    }
+
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+        }
+    }
+
+    /**
+     * Endpoint URL to pass as ConfigurationManager.API_URL_PROPERTY
+     */
+    public String getUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + COMPLETIONS_PATH;
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getErrorCount() {
+        return errorCount.get();
+    }
+
+    public long getStreamedCount() {
+        return streamedCount.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            requestCount.incrementAndGet();
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                sendJson(exchange, 405, error("Method not allowed", "invalid_request_error"));
+                return;
+            }
+
+            JSONObject request = new JSONObject(readBody(exchange.getRequestBody()));
+            boolean stream = request.optBoolean("stream", false);
+            String model = request.optString("model", "stub");
+
+            if (shouldFail()) {
+                errorCount.incrementAndGet();
+                exchange.getResponseHeaders().set("Retry-After", "0");
+                sendJson(exchange, errorStatus, error("Injected failure", errorStatus == 429 ? "rate_limit_exceeded" : "server_error"));
+                return;
+            }
+
+            pause(TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+            List<String> tokens = generateTokens();
+
+            if (stream) {
+                streamedCount.incrementAndGet();
+                streamTokens(exchange, model, tokens);
+            } else {
+                pause(tokensPerSecond > 0 ? TimeUnit.SECONDS.toNanos(tokens.size()) / tokensPerSecond : 0);
+                sendJson(exchange, 200, completion(model, String.join("", tokens), tokens.size()));
+            }
+        } catch (Exception e) {
+            if (exchange.getResponseCode() == -1) { // Headers not sent yet
+                sendJson(exchange, 500, error(String.valueOf(e.getMessage()), "server_error"));
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void streamTokens(HttpExchange exchange, String model, List<String> tokens) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0); // Chunked
+
+        long nanosPerToken = tokensPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / tokensPerSecond : 0;
+        try (OutputStream out = exchange.getResponseBody()) {
+            for (String token : tokens) {
+                JSONObject delta = new JSONObject().put("content", token);
+                JSONObject choice = new JSONObject().put("index", 0).put("delta", delta);
+                JSONObject chunk = new JSONObject()
+                    .put("id", "chatcmpl-stub")
+                    .put("object", "chat.completion.chunk")
+                    .put("model", model)
+                    .put("choices", new JSONArray().put(choice));
+                out.write(("data: " + chunk + "\n\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                pause(nanosPerToken);
+            }
+            out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private synchronized boolean shouldFail() {
+        return errorRate > 0 && random.nextDouble() < errorRate;
+    }
+
+    private List<String> generateTokens() {
+        List<String> tokens = new ArrayList<>(responseTokens);
+        int line = 0;
+        while (tokens.size() < responseTokens) {
+            String[] words = REPLY_LINES[line++ % REPLY_LINES.length].split(" ");
+            for (int i = 0; i < words.length && tokens.size() < responseTokens; i++) {
+                tokens.add(words[i] + (i == words.length - 1 ? "\n" : " "));
+            }
+        }
+        return tokens;
+    }
+
+    private static JSONObject completion(String model, String content, int completionTokens) {
+        JSONObject message = new JSONObject().put("role", "assistant").put("content", content);
+        JSONObject choice = new JSONObject().put("index", 0).put("message", message).put("finish_reason", "stop");
+        JSONObject usage = new JSONObject()
+            .put("completion_tokens", completionTokens)
+            .put("total_tokens", completionTokens);
+        return new JSONObject()
+            .put("id", "chatcmpl-stub")
+            .put("object", "chat.completion")
+            .put("model", model)
+            .put("choices", new JSONArray().put(choice))
+            .put("usage", usage);
+    }
+
+    private static JSONObject error(String message, String type) {
+        return new JSONObject().put("error", new JSONObject().put("message", message).put("type", type));
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, JSONObject body) throws IOException {
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String readBody(InputStream in) throws IOException {
+        try (InputStream body = in) {
+            return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Sleep with sub-millisecond precision for fast token rates
+     */
+    private static void pause(long nanos) {
+        long deadline = System.nanoTime() + nanos;
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    /**
+     * Run standalone: OpenAIStubServer [port] - point the plug-in at it with -Dabap.assistant.openai.url=...
+     */
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8089;
+        OpenAIStubServer stub = new OpenAIStubServer(port).start();
+        System.out.println("OpenAI stub listening on " + stub.getUrl());
+        Thread.currentThread().join();
+    }
+}
@@ -41,6 +41,10 @@ curl -L -o "lib\slf4j-simple-1.7.36.jar" "https://repo1.maven.org/maven2/org/slf
 REM XMLBeans for POI
 curl -L -o "lib\xmlbeans-5.1.1.jar" "https://repo1.maven.org/maven2/org/apache/xmlbeans/xmlbeans/5.1.1/xmlbeans-5.1.1.jar"
 
+REM Tokenizer vocabulary (cl100k_base) for exact prompt token counts
+if not exist "resources\tokenizer" mkdir "resources\tokenizer"
+curl -L -o "resources\tokenizer\cl100k_base.tiktoken" "https://openaipublic.blob.core.windows.net/encodings/cl100k_base.tiktoken"
+
 echo.
 echo ✅ Todas las librerías descargadas correctamente!
 echo 📂 Revisa la carpeta 'lib' para verificar los archivos
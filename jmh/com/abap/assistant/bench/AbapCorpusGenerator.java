@@ -0,0 +1,134 @@
+package com.abap.assistant.bench;
+
+import java.util.Random;
+
+/**
+ * Generates deterministic ABAP source of a given size for benchmarks
+ * Mixes the constructs the analyzers look for: declarations (single and chained), SELECTs with and
+ * without WHERE, SELECT inside LOOP, function/BAPI calls, FORMs, classes, includes and comments
+ */
+public final class AbapCorpusGenerator {
+
+    private static final String[] TABLES = {"mara", "marc", "vbak", "vbap", "ekko", "ekpo", "kna1", "bkpf", "bseg"};
+    private static final String[] TYPES = {"i", "string", "matnr", "vbeln", "p LENGTH 13 DECIMALS 2", "abap_bool", "d"};
+
+    private AbapCorpusGenerator() {
+    }
+
+    /**
+     * Generate approximately the requested number of lines (always complete blocks)
+     */
+    public static String generate(int lines, long seed) {
+        Random random = new Random(seed);
+        StringBuilder code = new StringBuilder(lines * 40);
+        int[] lineCount = {0};
+        int block = 0;
+
+        appendLine(code, lineCount, "REPORT zbench_" + seed + ".");
+        appendLine(code, lineCount, "INCLUDE zbench_top.");
+        appendLine(code, lineCount, "");
+
+        while (lineCount[0] < lines) {
+            switch (random.nextInt(6)) {
+                case 0:
+                    appendDeclarations(code, lineCount, random, block);
+                    break;
+                case 1:
+                    appendSelectLoop(code, lineCount, random, block);
+                    break;
+                case 2:
+                    appendForm(code, lineCount, random, block);
+                    break;
+                case 3:
+                    appendClass(code, lineCount, random, block);
+                    break;
+                case 4:
+                    appendFunctionCalls(code, lineCount, random, block);
+                    break;
+                default:
+                    appendConditionals(code, lineCount, random, block);
+            }
+            block++;
+        }
+        return code.toString();
+    }
+
+    private static void appendDeclarations(StringBuilder code, int[] lineCount, Random random, int block) {
+        appendLine(code, lineCount, "* Declarations block " + block);
+        appendLine(code, lineCount, "DATA lv_total_" + block + " TYPE " + pick(random, TYPES) + ".");
+        appendLine(code, lineCount, "DATA: lt_" + pick(random, TABLES) + "_" + block + " TYPE TABLE OF " + pick(random, TABLES) + ",");
+        appendLine(code, lineCount, "      ls_row_" + block + " TYPE " + pick(random, TABLES) + ",");
+        appendLine(code, lineCount, "      lv_count_" + block + " TYPE i.");
+        appendLine(code, lineCount, "CONSTANTS lc_max_" + block + " TYPE i VALUE " + random.nextInt(1000) + ".");
+        appendLine(code, lineCount, "FIELD-SYMBOLS <fs_row_" + block + "> TYPE any.");
+        appendLine(code, lineCount, "lv_count_" + block + " = lv_count_" + block + " + lc_max_" + block + ".");
+    }
+
+    private static void appendSelectLoop(StringBuilder code, int[] lineCount, Random random, int block) {
+        String header = pick(random, TABLES);
+        String item = pick(random, TABLES);
+        appendLine(code, lineCount, "DATA lt_head_" + block + " TYPE TABLE OF " + header + ".");
+        if (random.nextBoolean()) {
+            appendLine(code, lineCount, "SELECT * FROM " + header + " INTO TABLE lt_head_" + block + ".");
+        } else {
+            appendLine(code, lineCount, "SELECT * FROM " + header + " INTO TABLE @lt_head_" + block
+                + " WHERE erdat >= @sy-datum.");
+        }
+        appendLine(code, lineCount, "LOOP AT lt_head_" + block + " INTO DATA(ls_head_" + block + ").");
+        appendLine(code, lineCount, "  SELECT SINGLE * FROM " + item + " INTO @DATA(ls_item_" + block + ")");
+        appendLine(code, lineCount, "    WHERE mandt = @sy-mandt.");
+        appendLine(code, lineCount, "  WRITE: / 'Row', ls_head_" + block + ".");
+        appendLine(code, lineCount, "ENDLOOP.");
+    }
+
+    private static void appendForm(StringBuilder code, int[] lineCount, Random random, int block) {
+        appendLine(code, lineCount, "PERFORM process_" + block + " USING lv_total_" + block + ".");
+        appendLine(code, lineCount, "FORM process_" + block + " USING pv_value TYPE i.");
+        appendLine(code, lineCount, "  DATA lv_local_" + block + " TYPE i.");
+        appendLine(code, lineCount, "  lv_local_" + block + " = pv_value * " + (random.nextInt(9) + 1) + ".");
+        appendLine(code, lineCount, "  UPDATE " + pick(random, TABLES) + " SET loekz = 'X' WHERE matnr = lv_local_" + block + ".");
+        appendLine(code, lineCount, "ENDFORM.");
+    }
+
+    private static void appendClass(StringBuilder code, int[] lineCount, Random random, int block) {
+        String name = "lcl_handler_" + block;
+        appendLine(code, lineCount, "CLASS " + name + " DEFINITION.");
+        appendLine(code, lineCount, "  PUBLIC SECTION.");
+        appendLine(code, lineCount, "    METHODS run IMPORTING iv_id TYPE i RETURNING VALUE(rv_ok) TYPE abap_bool.");
+        appendLine(code, lineCount, "ENDCLASS.");
+        appendLine(code, lineCount, "CLASS " + name + " IMPLEMENTATION.");
+        appendLine(code, lineCount, "  METHOD run.");
+        appendLine(code, lineCount, "    DATA lo_alv TYPE REF TO cl_salv_table.");
+        appendLine(code, lineCount, "    rv_ok = COND #( WHEN iv_id > " + random.nextInt(100) + " THEN abap_true ).");
+        appendLine(code, lineCount, "  ENDMETHOD.");
+        appendLine(code, lineCount, "ENDCLASS.");
+    }
+
+    private static void appendFunctionCalls(StringBuilder code, int[] lineCount, Random random, int block) {
+        appendLine(code, lineCount, "CALL FUNCTION 'BAPI_MATERIAL_GET_DETAIL'");
+        appendLine(code, lineCount, "  EXPORTING material = lv_matnr_" + block);
+        appendLine(code, lineCount, "  EXCEPTIONS OTHERS = 1.");
+        appendLine(code, lineCount, "CALL METHOD lo_handler->run EXPORTING iv_id = " + random.nextInt(500) + ".");
+        appendLine(code, lineCount, "MOVE lv_total_" + block + " TO lv_result.");
+        appendLine(code, lineCount, "CONCATENATE 'A' 'B' INTO lv_text SEPARATED BY space.");
+    }
+
+    private static void appendConditionals(StringBuilder code, int[] lineCount, Random random, int block) {
+        appendLine(code, lineCount, "\" Inline comment for block " + block);
+        appendLine(code, lineCount, "IF lv_count_" + block + " > " + random.nextInt(100) + ".");
+        appendLine(code, lineCount, "  lv_flag = abap_true.");
+        appendLine(code, lineCount, "  READ TABLE lt_data INTO ls_data WITH KEY id = " + block + ".");
+        appendLine(code, lineCount, "ELSE.");
+        appendLine(code, lineCount, "  CLEAR lv_flag.");
+        appendLine(code, lineCount, "ENDIF.");
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static void appendLine(StringBuilder code, int[] lineCount, String line) {
+        code.append(line).append('\n');
+        lineCount[0]++;
+    }
+}
@@ -0,0 +1,106 @@
+package com.abap.assistant.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.abap.assistant.models.CodeContext;
+import com.abap.assistant.parser.AbapParser;
+import com.abap.assistant.parser.AbapSyntaxTree;
+import com.abap.assistant.services.ABAPIntelligenceService;
+import com.abap.assistant.services.CodeAnalysisService;
+import com.abap.assistant.services.ContextCaptureService;
+import com.abap.assistant.services.DocumentContextManager;
+
+/**
+ * JMH benchmarks of the ABAP analysis hot paths over generated corpora
+ * Run a subset with: gradle jmh -PjmhArgs="-p lines=1000,10000 AnalysisBenchmark.performDeepAnalysis"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+public class AnalysisBenchmark {
+
+    private static final int DOCUMENTS = 10;
+
+    @Param({"1000", "10000", "100000"})
+    public int lines;
+
+    private String corpus;
+    private CodeAnalysisService codeAnalysisService;
+    private ABAPIntelligenceService intelligenceService;
+    private ContextCaptureService contextCaptureService;
+    private DocumentContextManager contextManager;
+    private AbapParser parser;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        corpus = AbapCorpusGenerator.generate(lines, 42);
+        codeAnalysisService = new CodeAnalysisService();
+        intelligenceService = new ABAPIntelligenceService();
+        contextCaptureService = new ContextCaptureService();
+        parser = new AbapParser(0);
+
+        // Same corpus split into documents, as if specs of this size were attached
+        contextManager = new DocumentContextManager();
+        int chunk = corpus.length() / DOCUMENTS + 1;
+        for (int i = 0; i < DOCUMENTS; i++) {
+            int start = Math.min(corpus.length(), i * chunk);
+            int end = Math.min(corpus.length(), start + chunk);
+            contextManager.addDocument("spec-" + i + ".txt", corpus.substring(start, end));
+        }
+    }
+
+    /**
+     * Every analysis parses its source from scratch, as on a cold start: left filled, the shared parse
+     * cache would turn the small corpora into cache hits while 100,000 lines outgrow it
+     * The per-call overhead is negligible against millisecond-scale invocations
+     */
+    @Setup(Level.Invocation)
+    public void clearParseCache() {
+        AbapParser.getInstance().clearCache();
+    }
+
+    /**
+     * Parse alone, the share of every analysis below that the syntax tree costs
+     */
+    @Benchmark
+    public AbapSyntaxTree parse() {
+        return parser.parse(corpus);
+    }
+
+    @Benchmark
+    public CodeContext performDeepAnalysis() {
+        return codeAnalysisService.performDeepAnalysis("ZBENCH.abap", corpus);
+    }
+
+    @Benchmark
+    public ABAPIntelligenceService.CodeAnalysisResult analyzeCode() {
+        // Static checks only - the AI round trip is measured by ChatLatencyBenchmark
+        return intelligenceService.analyzeCode(corpus, false);
+    }
+
+    @Benchmark
+    public String captureABAPContext() {
+        return contextCaptureService.captureABAPContext(corpus);
+    }
+
+    @Benchmark
+    public String buildContext() {
+        return contextManager.buildContext();
+    }
+}
@@ -1,8 +1,16 @@
 package com.abap.assistant;
 
+import java.io.File;
+
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.osgi.framework.BundleContext;
 
+import com.abap.assistant.services.ChatGPTService;
+import com.abap.assistant.services.CodeAnalysisService;
+import com.abap.assistant.services.HttpClientPool;
+import com.abap.assistant.services.LiveCodeModelManager;
+import com.abap.assistant.utils.ConfigurationManager;
+
 /**
  * The activator class controls the plug-in life cycle
  */
@@ -13,6 +21,9 @@ public class Activator extends AbstractUIPlugin {
 
     // The shared instance
     private static Activator plugin;
+    
+    // Shared HTTP connection pool for the plug-in lifetime
+    private HttpClientPool httpClientPool;
 
     /**
      * The constructor
@@ -37,6 +48,14 @@ public class Activator extends AbstractUIPlugin {
      * @see org.eclipse.ui.plugin.AbstractUIPlugin#stop(org.osgi.framework.BundleContext)
      */
     public void stop(BundleContext context) throws Exception {
+        ChatGPTService.shutdownExecutors();
+        LiveCodeModelManager.getInstance().stop();
+        CodeAnalysisService.shutdown();
+        if (httpClientPool != null) {
+            System.out.println(httpClientPool.getStatsSummary());
+            httpClientPool.shutdown();
+            httpClientPool = null;
+        }
         plugin = null;
         super.stop(context);
     }
@@ -50,8 +69,35 @@ public class Activator extends AbstractUIPlugin {
         return plugin;
     }
     
+    /**
+     * Returns a directory under the plug-in state location, created on demand
+     * Falls back to the user home when running outside OSGi (benchmarks, tools)
+     */
+    public static File getStateDirectory(String name) {
+        File base;
+        try {
+            base = plugin != null ? plugin.getStateLocation().toFile()
+                                  : new File(System.getProperty("user.home"), ".abap-assistant");
+        } catch (IllegalStateException e) {
+            base = new File(System.getProperty("user.home"), ".abap-assistant");
+        }
+        File directory = new File(base, name);
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+        return directory;
+    }
+    
+    /**
+     * Returns the HTTP connection pool shared by all ChatGPT service instances
+     */
+    public HttpClientPool getHttpClientPool() {
+        return httpClientPool;
+    }
+    
     private void initializeServices() {
         // Initialize ChatGPT service, document processors, etc.
+        httpClientPool = new HttpClientPool(ConfigurationManager.getInstance());
         System.out.println("ABAP Assistant Plugin initialized successfully");
     }
 }
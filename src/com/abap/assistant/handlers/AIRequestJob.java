@@ -0,0 +1,68 @@
+package com.abap.assistant.handlers;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.swt.widgets.Display;
+
+import com.abap.assistant.models.ChatMessage;
+import com.abap.assistant.services.ChatGPTService;
+import com.abap.assistant.utils.EditorUtils;
+
+/**
+ * Background job for a single AI request issued by a command handler
+ * Cancelling the job aborts the in-flight HTTP request
+ */
+public class AIRequestJob extends Job {
+
+    private final ChatGPTService chatService;
+    private final String prompt;
+    private final String errorTitle;
+    private final Consumer<ChatMessage> onResponse;
+
+    public AIRequestJob(String name, ChatGPTService chatService, String prompt, String errorTitle) {
+        this(name, chatService, prompt, errorTitle, null);
+    }
+
+    /**
+     * @param onResponse Called on the display thread with the response (may be null)
+     */
+    public AIRequestJob(String name, ChatGPTService chatService, String prompt, String errorTitle,
+            Consumer<ChatMessage> onResponse) {
+        super(name);
+        this.chatService = chatService;
+        this.prompt = prompt;
+        this.errorTitle = errorTitle;
+        this.onResponse = onResponse;
+        setUser(true);
+    }
+
+    @Override
+    protected IStatus run(IProgressMonitor monitor) {
+        monitor.beginTask("Waiting for AI response...", IProgressMonitor.UNKNOWN);
+        try {
+            ChatMessage response = chatService.sendMessageAsync(prompt, monitor).join();
+            if (onResponse != null) {
+                Display.getDefault().asyncExec(() -> onResponse.accept(response));
+            }
+            return Status.OK_STATUS;
+
+        } catch (CancellationException e) {
+            return Status.CANCEL_STATUS;
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof CancellationException) {
+                return Status.CANCEL_STATUS;
+            }
+            Display.getDefault().asyncExec(() -> EditorUtils.showErrorMessage(errorTitle, cause.getMessage()));
+            return Status.OK_STATUS;
+        } finally {
+            monitor.done();
+        }
+    }
+}
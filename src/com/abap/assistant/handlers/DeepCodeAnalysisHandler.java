@@ -3,6 +3,7 @@ package com.abap.assistant.handlers;
 import org.eclipse.core.commands.AbstractHandler;
 import org.eclipse.core.commands.ExecutionEvent;
 import org.eclipse.core.commands.ExecutionException;
+import org.eclipse.core.resources.IFile;
 import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.swt.widgets.Display;
@@ -13,7 +14,6 @@ import org.eclipse.ui.texteditor.ITextEditor;
 import com.abap.assistant.models.CodeContext;
 import com.abap.assistant.models.VariableInfo;
 import com.abap.assistant.models.DependencyInfo;
-import com.abap.assistant.models.ChatMessage;
 import com.abap.assistant.services.CodeAnalysisService;
 import com.abap.assistant.services.ChatGPTService;
 import com.abap.assistant.utils.EditorUtils;
@@ -43,10 +43,12 @@ public class DeepCodeAnalysisHandler extends AbstractHandler {
                 .getDocument(textEditor.getEditorInput());
             String content = document.get();
             String fileName = textEditor.getEditorInput().getName();
+            IFile file = textEditor.getEditorInput().getAdapter(IFile.class);
 
-            // Realizar análisis profundo
+            // Realizar análisis profundo (persistido por ruta si el archivo está en el workspace)
             CodeAnalysisService analysisService = CodeAnalysisService.getInstance();
-            CodeContext context = analysisService.performDeepAnalysis(fileName, content);
+            CodeContext context = file != null ? analysisService.performDeepAnalysis(file, content)
+                                               : analysisService.performDeepAnalysis(fileName, content);
 
             // Obtener contexto completo del proyecto
             Map<String, CodeContext> projectContext = analysisService.analyzeCompleteProject();
@@ -85,7 +87,15 @@ public class DeepCodeAnalysisHandler extends AbstractHandler {
         report.append("📄 ARCHIVO: ").append(context.getFileName()).append("\n");
         report.append("📝 TIPO: ").append(context.getProgramType()).append("\n");
         report.append("🏗️ CLASES: ").append(context.getClassNames().size()).append("\n");
-        report.append("📚 INCLUDES: ").append(context.getIncludes().size()).append("\n\n");
+        report.append("📚 INCLUDES: ").append(context.getIncludes().size()).append("\n");
+        report.append("⏱️ ANÁLISIS: ").append(context.getMetadata().getOrDefault(CodeAnalysisService.METADATA_TIME_MS, "?"))
+            .append(" ms, ").append(context.getMetadata().getOrDefault(CodeAnalysisService.METADATA_TOKENS, "?"))
+            .append(" tokens");
+        String allocatedBytes = context.getMetadata().get(CodeAnalysisService.METADATA_ALLOCATED_BYTES);
+        if (allocatedBytes != null) {
+            report.append(", ").append(Long.parseLong(allocatedBytes) / 1024).append(" KB asignados");
+        }
+        report.append("\n\n");
 
         // Análisis de variables
         report.append("🔢 === ANÁLISIS DE VARIABLES (").append(context.getVariables().size()).append(") ===\n");
@@ -161,7 +171,7 @@ public class DeepCodeAnalysisHandler extends AbstractHandler {
     private void performAIAnalysis(CodeContext context, CodeAnalysisService analysisService) {
         try {
             // Preparar contexto para ChatGPT
-            String enhancedContext = analysisService.getEnhancedContextForAI(context.getFileName());
+            String enhancedContext = analysisService.getEnhancedContextForAI(context.getFilePath());
             
             // Prompt especializado para análisis de código
             String prompt = "Analiza este código ABAP en profundidad:\n\n" +
@@ -181,28 +191,15 @@ public class DeepCodeAnalysisHandler extends AbstractHandler {
                     "🤖 IA Analizando", "ChatGPT está analizando el código...");
             });
 
-            // Realizar análisis con IA (en hilo separado para no bloquear UI)
-            new Thread(() -> {
-                try {
-                    ChatMessage response = chatService.sendMessage(prompt);
-                    String aiAnalysis = response.getContent();
-                    
-                    Display.getDefault().asyncExec(() -> {
-                        AIAnalysisDialog aiDialog = new AIAnalysisDialog(
-                            Display.getDefault().getActiveShell(),
-                            "🤖 Análisis con Inteligencia Artificial",
-                            aiAnalysis
-                        );
-                        aiDialog.open();
-                    });
-                    
-                } catch (Exception e) {
-                    Display.getDefault().asyncExec(() -> {
-                        MessageDialog.openError(Display.getDefault().getActiveShell(),
-                            "❌ Error IA", "Error en análisis con IA: " + e.getMessage());
-                    });
-                }
-            }).start();
+            // Realizar análisis con IA en un Job cancelable para no bloquear UI
+            new AIRequestJob("AI Code Analysis", chatService, prompt, "❌ Error IA", response -> {
+                AIAnalysisDialog aiDialog = new AIAnalysisDialog(
+                    Display.getDefault().getActiveShell(),
+                    "🤖 Análisis con Inteligencia Artificial",
+                    response.getContent()
+                );
+                aiDialog.open();
+            }).schedule();
 
         } catch (Exception e) {
             MessageDialog.openError(Display.getDefault().getActiveShell(),
@@ -32,14 +32,9 @@ public class QuickErrorCheckHandler extends AbstractHandler {
         String prompt = ChatGPTService.ABAPPromptBuilder.buildErrorCheckPrompt(
             selectedCode, context + "\n" + abapContext);
         
-        new Thread(() -> {
-            try {
-                ChatGPTService chatService = new ChatGPTService();
-                chatService.sendMessage(prompt);
-            } catch (Exception e) {
-                EditorUtils.showErrorMessage("Quick Error Check Error", e.getMessage());
-            }
-        }).start();
+        // Cancellable background request on the bounded AI executor
+        ChatGPTService chatService = new ChatGPTService();
+        new AIRequestJob("Quick Error Check", chatService, prompt, "Quick Error Check Error").schedule();
         
         EditorUtils.showMessage("Quick Error Check request sent to AI Assistant");
         return null;
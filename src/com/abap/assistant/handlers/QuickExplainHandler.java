@@ -50,15 +50,8 @@ public class QuickExplainHandler extends AbstractHandler {
             // Send to AI service
             ChatGPTService chatService = new ChatGPTService();
             
-            // This would typically be handled asynchronously
-            new Thread(() -> {
-                try {
-                    chatService.sendMessage(prompt);
-                    // The view will handle displaying the response
-                } catch (Exception e) {
-                    EditorUtils.showErrorMessage("Quick Explain Error", e.getMessage());
-                }
-            }).start();
+            // Cancellable background request on the bounded AI executor
+            new AIRequestJob("Quick Explain", chatService, prompt, "Quick Explain Error").schedule();
             
             EditorUtils.showMessage("Quick Explain request sent to AI Assistant");
             
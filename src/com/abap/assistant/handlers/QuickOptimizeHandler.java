@@ -32,14 +32,9 @@ public class QuickOptimizeHandler extends AbstractHandler {
         String prompt = ChatGPTService.ABAPPromptBuilder.buildOptimizePrompt(
             selectedCode, context + "\n" + abapContext);
         
-        new Thread(() -> {
-            try {
-                ChatGPTService chatService = new ChatGPTService();
-                chatService.sendMessage(prompt);
-            } catch (Exception e) {
-                EditorUtils.showErrorMessage("Quick Optimize Error", e.getMessage());
-            }
-        }).start();
+        // Cancellable background request on the bounded AI executor
+        ChatGPTService chatService = new ChatGPTService();
+        new AIRequestJob("Quick Optimize", chatService, prompt, "Quick Optimize Error").schedule();
         
         EditorUtils.showMessage("Quick Optimize request sent to AI Assistant");
         return null;
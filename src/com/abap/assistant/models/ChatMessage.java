@@ -3,6 +3,8 @@ package com.abap.assistant.models;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
+import com.abap.assistant.utils.TokenCounter;
+
 /**
  * Represents a chat message in the conversation
  */
@@ -13,6 +15,7 @@ public class ChatMessage {
     private String content;
     private LocalDateTime timestamp;
     private MessageType type;
+    private int tokenCount = -1; // Counted on first use, reset when the content changes
     
     public enum MessageType {
         USER, ASSISTANT, SYSTEM, ERROR, QUICK_ACTION
@@ -63,6 +66,17 @@ public class ChatMessage {
     
     public void setContent(String content) {
         this.content = content;
+        this.tokenCount = -1;
+    }
+    
+    /**
+     * Tokens of the content, without the per-message framing overhead
+     */
+    public int getTokenCount() {
+        if (tokenCount < 0) {
+            tokenCount = TokenCounter.getInstance().countTokens(content);
+        }
+        return tokenCount;
     }
     
     public LocalDateTime getTimestamp() {
@@ -8,6 +8,7 @@ import java.util.*;
  */
 public class CodeContext {
     private String fileName;
+    private String filePath;
     private String programType;
     private List<String> classNames;
     private List<String> includes;
@@ -18,6 +19,7 @@ public class CodeContext {
 
     public CodeContext(String fileName) {
         this.fileName = fileName;
+        this.filePath = fileName;
         this.classNames = new ArrayList<>();
         this.includes = new ArrayList<>();
         this.methodCalls = new ArrayList<>();
@@ -30,6 +32,10 @@ public class CodeContext {
     public String getFileName() { return fileName; }
     public void setFileName(String fileName) { this.fileName = fileName; }
 
+    // Ruta completa en el workspace, o el nombre si el archivo no pertenece a uno
+    public String getFilePath() { return filePath; }
+    public void setFilePath(String filePath) { this.filePath = filePath; }
+
     public String getProgramType() { return programType; }
     public void setProgramType(String programType) { this.programType = programType; }
 
@@ -70,6 +76,47 @@ public class CodeContext {
             .collect(ArrayList::new, (list, item) -> list.add(item), (list1, list2) -> list1.addAll(list2));
     }
 
+    /**
+     * Estimación aproximada de la memoria retenida, en bytes, para acotar caches por tamaño
+     */
+    public long estimateSizeBytes() {
+        long size = 160 + stringSize(fileName) + stringSize(filePath) + stringSize(programType);
+        size += stringsSize(classNames) + stringsSize(includes) + stringsSize(methodCalls) + mapSize(metadata);
+        for (VariableInfo variable : variables) {
+            size += 120 + stringSize(variable.getName()) + stringSize(variable.getType())
+                + stringSize(variable.getScope()) + stringSize(variable.getDefaultValue())
+                + 20L * variable.getUsageLines().size() + mapSize(variable.getAttributes());
+        }
+        for (DependencyInfo dependency : dependencies) {
+            size += 120 + stringSize(dependency.getName()) + stringSize(dependency.getType())
+                + stringSize(dependency.getSource()) + stringSize(dependency.getDescription())
+                + stringsSize(dependency.getParameters()) + 20L * dependency.getUsageLines().size()
+                + mapSize(dependency.getMetadata());
+        }
+        return size;
+    }
+
+    // Cabecera de String + array; 2 bytes por carácter en el peor caso
+    private static long stringSize(String value) {
+        return value == null ? 0 : 40 + 2L * value.length();
+    }
+
+    private static long stringsSize(List<String> values) {
+        long size = 16 + 8L * values.size();
+        for (String value : values) {
+            size += stringSize(value);
+        }
+        return size;
+    }
+
+    private static long mapSize(Map<String, String> values) {
+        long size = 48 + 32L * values.size();
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            size += stringSize(entry.getKey()) + stringSize(entry.getValue());
+        }
+        return size;
+    }
+
     /**
      * Genera un resumen textual del contexto
      */
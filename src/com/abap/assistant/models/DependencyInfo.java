@@ -49,7 +49,9 @@ public class DependencyInfo {
 
     public List<Integer> getUsageLines() { return usageLines; }
     public void addUsageLine(int lineNumber) { 
-        if (!usageLines.contains(lineNumber)) {
+        // Las líneas suelen llegar en orden: se evita recorrer la lista
+        int last = usageLines.isEmpty() ? -1 : usageLines.get(usageLines.size() - 1);
+        if (lineNumber > last || (lineNumber < last && !usageLines.contains(lineNumber))) {
             this.usageLines.add(lineNumber);
             incrementUsageCount();
         }
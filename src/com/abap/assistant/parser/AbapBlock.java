@@ -0,0 +1,125 @@
+package com.abap.assistant.parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Block of an ABAP syntax tree: a processing block (FORM, METHOD...) or a control structure (LOOP, IF...)
+ * Spans the statements from its opening statement up to and including its closing one
+ */
+public final class AbapBlock {
+
+    public enum Type {
+        PROGRAM(null),
+        CLASS_DEFINITION("ENDCLASS"),
+        CLASS_IMPLEMENTATION("ENDCLASS"),
+        INTERFACE("ENDINTERFACE"),
+        FORM("ENDFORM"),
+        METHOD("ENDMETHOD"),
+        FUNCTION("ENDFUNCTION"),
+        MODULE("ENDMODULE"),
+        LOOP("ENDLOOP"),
+        SELECT_LOOP("ENDSELECT"),
+        IF("ENDIF"),
+        CASE("ENDCASE"),
+        DO("ENDDO"),
+        WHILE("ENDWHILE"),
+        TRY("ENDTRY");
+
+        private final String closingKeyword;
+
+        Type(String closingKeyword) {
+            this.closingKeyword = closingKeyword;
+        }
+
+        public String getClosingKeyword() {
+            return closingKeyword;
+        }
+
+        /**
+         * Blocks that hold executable code on their own; loops never extend past them
+         */
+        public boolean isProcessingBlock() {
+            return this == FORM || this == METHOD || this == FUNCTION || this == MODULE;
+        }
+    }
+
+    private final Type type;
+    private final String name;
+    private final AbapBlock parent;
+    private final int firstStatement;
+    private final int startLine;
+    private final List<AbapBlock> children = new ArrayList<>();
+    private int lastStatement;
+    private int endLine;
+    private boolean closed;
+
+    AbapBlock(Type type, String name, AbapBlock parent, int firstStatement, int startLine) {
+        this.type = type;
+        this.name = name;
+        this.parent = parent;
+        this.firstStatement = firstStatement;
+        this.startLine = startLine;
+        this.lastStatement = firstStatement;
+        this.endLine = startLine;
+        if (parent != null) {
+            parent.children.add(this);
+        }
+    }
+
+    void close(int statementIndex, int line, boolean terminated) {
+        this.lastStatement = statementIndex;
+        this.endLine = line;
+        this.closed = terminated;
+    }
+
+    public Type getType() { return type; }
+
+    /**
+     * Name of a FORM, METHOD, FUNCTION, MODULE, CLASS or INTERFACE as written; null for control blocks
+     */
+    public String getName() { return name; }
+
+    public AbapBlock getParent() { return parent; }
+
+    public List<AbapBlock> getChildren() {
+        return Collections.unmodifiableList(children);
+    }
+
+    /**
+     * Index of the opening statement in {@link AbapSyntaxTree#getStatements()}
+     */
+    public int getFirstStatement() { return firstStatement; }
+
+    /**
+     * Index of the closing statement, or of the last statement seen for an unterminated block
+     */
+    public int getLastStatement() { return lastStatement; }
+
+    public int getStartLine() { return startLine; }
+
+    public int getEndLine() { return endLine; }
+
+    /**
+     * False when the source ended, or an enclosing block closed, before this block's END keyword
+     */
+    public boolean isClosed() { return closed; }
+
+    /**
+     * Nearest enclosing block of the given type (this block included), or null
+     */
+    public AbapBlock findEnclosing(Type wanted) {
+        for (AbapBlock block = this; block != null; block = block.parent) {
+            if (block.type == wanted) {
+                return block;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return type + (name != null ? " " + name : "") + "@" + startLine + "-" + endLine;
+    }
+}
@@ -0,0 +1,143 @@
+package com.abap.assistant.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One ABAP statement: the tokens up to (not including) its terminating period, comments excluded
+ * A chained statement (WRITE: a, b.) stays a single statement; {@link #getChainParts()} splits its operands
+ */
+public final class AbapStatement {
+
+    private final List<AbapToken> tokens;
+    private final int startLine;
+    private final int endLine;
+
+    private AbapStatement(List<AbapToken> tokens, int endLine) {
+        this.tokens = tokens;
+        this.startLine = tokens.get(0).getLine();
+        this.endLine = endLine;
+    }
+
+    /**
+     * Split a token stream on periods in one pass; a trailing unterminated statement is kept
+     */
+    public static List<AbapStatement> split(List<AbapToken> tokens) {
+        List<AbapToken> code = new ArrayList<>(tokens.size());
+        for (AbapToken token : tokens) {
+            if (!token.is(AbapToken.Type.COMMENT)) {
+                code.add(token);
+            }
+        }
+
+        List<AbapStatement> statements = new ArrayList<>(Math.max(16, code.size() / 8));
+        int start = 0;
+        for (int i = 0; i < code.size(); i++) {
+            if (code.get(i).is(AbapToken.Type.PERIOD)) {
+                if (i > start) {
+                    statements.add(new AbapStatement(code.subList(start, i), code.get(i).getLine()));
+                }
+                start = i + 1;
+            }
+        }
+        if (start < code.size()) {
+            statements.add(new AbapStatement(code.subList(start, code.size()), code.get(code.size() - 1).getLine()));
+        }
+        return statements;
+    }
+
+    public List<AbapToken> getTokens() {
+        return tokens;
+    }
+
+    /**
+     * 1-based line of the first token
+     */
+    public int getStartLine() {
+        return startLine;
+    }
+
+    /**
+     * 1-based line of the terminating period (or last token)
+     */
+    public int getEndLine() {
+        return endLine;
+    }
+
+    /**
+     * Whether the statement begins with the given upper-case words
+     */
+    public boolean startsWith(String... words) {
+        if (tokens.size() < words.length) {
+            return false;
+        }
+        for (int i = 0; i < words.length; i++) {
+            if (!tokens.get(i).isWord(words[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether a chain colon shares the leading words among several comma-separated parts
+     */
+    public boolean isChained() {
+        return indexOf(AbapToken.Type.COLON) >= 0;
+    }
+
+    /**
+     * Operand parts of the statement: the comma-separated parts after the chain colon, or everything after
+     * the leading keyword when unchained; commas inside parentheses do not separate parts
+     */
+    public List<List<AbapToken>> getChainParts() {
+        int colon = indexOf(AbapToken.Type.COLON);
+        int start = colon >= 0 ? colon + 1 : 1;
+        List<List<AbapToken>> parts = new ArrayList<>();
+        int parenDepth = 0;
+        for (int i = start; i <= tokens.size(); i++) {
+            AbapToken token = i < tokens.size() ? tokens.get(i) : null;
+            if (token != null && token.is(AbapToken.Type.LPAREN)) {
+                parenDepth++;
+            } else if (token != null && token.is(AbapToken.Type.RPAREN)) {
+                parenDepth = Math.max(0, parenDepth - 1);
+            } else if (token == null || (token.is(AbapToken.Type.COMMA) && parenDepth == 0)) {
+                if (start < i) {
+                    parts.add(tokens.subList(start, i));
+                }
+                start = i + 1;
+            }
+        }
+        return parts;
+    }
+
+    public boolean containsWord(String upperCaseWord) {
+        return indexOfWord(upperCaseWord, 0) >= 0;
+    }
+
+    /**
+     * Index of the first token at or after from that is the given word, or -1
+     */
+    public int indexOfWord(String upperCaseWord, int from) {
+        for (int i = from; i < tokens.size(); i++) {
+            if (tokens.get(i).isWord(upperCaseWord)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int indexOf(AbapToken.Type type) {
+        for (int i = 0; i < tokens.size(); i++) {
+            if (tokens.get(i).is(type)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        return "Statement" + tokens + "@" + startLine + "-" + endLine;
+    }
+}
@@ -0,0 +1,94 @@
+package com.abap.assistant.parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Parse of one ABAP source: its tokens, period-terminated statements and the block structure over them
+ * Immutable once built, so one tree can be shared by every analyzer of the same source text
+ */
+public final class AbapSyntaxTree {
+
+    private final String source;
+    private final List<AbapToken> tokens;
+    private final List<AbapStatement> statements;
+    private final AbapBlock root;
+    private final AbapBlock[] enclosingBlocks;
+
+    AbapSyntaxTree(String source, List<AbapToken> tokens, List<AbapStatement> statements,
+                   AbapBlock root, AbapBlock[] enclosingBlocks) {
+        this.source = source;
+        this.tokens = Collections.unmodifiableList(tokens);
+        this.statements = Collections.unmodifiableList(statements);
+        this.root = root;
+        this.enclosingBlocks = enclosingBlocks;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Every token, comments included
+     */
+    public List<AbapToken> getTokens() {
+        return tokens;
+    }
+
+    public List<AbapStatement> getStatements() {
+        return statements;
+    }
+
+    /**
+     * Block of type PROGRAM spanning the whole source
+     */
+    public AbapBlock getRoot() {
+        return root;
+    }
+
+    /**
+     * Innermost block containing the statement; a block's opening and closing statements belong to it
+     */
+    public AbapBlock getEnclosingBlock(int statementIndex) {
+        return enclosingBlocks[statementIndex];
+    }
+
+    /**
+     * All blocks of the given type in source order
+     */
+    public List<AbapBlock> getBlocks(AbapBlock.Type type) {
+        List<AbapBlock> blocks = new ArrayList<>();
+        collect(root, type, blocks);
+        return blocks;
+    }
+
+    /**
+     * Statements whose first word is the given upper-case keyword, in source order
+     */
+    public List<AbapStatement> getStatements(String keyword) {
+        List<AbapStatement> matching = new ArrayList<>();
+        for (AbapStatement statement : statements) {
+            if (statement.startsWith(keyword)) {
+                matching.add(statement);
+            }
+        }
+        return matching;
+    }
+
+    /**
+     * Rough retained size in bytes, used to bound the parse cache
+     */
+    public long estimateSizeBytes() {
+        return 64 + 2L * source.length() + 72L * tokens.size() + 56L * statements.size();
+    }
+
+    private static void collect(AbapBlock block, AbapBlock.Type type, List<AbapBlock> blocks) {
+        if (block.getType() == type) {
+            blocks.add(block);
+        }
+        for (AbapBlock child : block.getChildren()) {
+            collect(child, type, blocks);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.abap.assistant.parser;
+
+/**
+ * Lexical token of ABAP source
+ * Words carry an upper-case key because ABAP keywords and identifiers are case-insensitive
+ */
+public final class AbapToken {
+
+    public enum Type {
+        KEYWORD,
+        IDENTIFIER,
+        STRING_LITERAL,
+        NUMBER,
+        COMMENT,
+        COLON,
+        COMMA,
+        PERIOD,
+        LPAREN,
+        RPAREN,
+        OPERATOR
+    }
+
+    private final Type type;
+    private final String text;
+    private final String key;
+    private final int offset;
+    private final int line;
+
+    public AbapToken(Type type, String text, String key, int offset, int line) {
+        this.type = type;
+        this.text = text;
+        this.key = key;
+        this.offset = offset;
+        this.line = line;
+    }
+
+    public Type getType() { return type; }
+
+    /**
+     * Source text as written
+     */
+    public String getText() { return text; }
+
+    /**
+     * Upper-case text for words, source text otherwise
+     */
+    public String getKey() { return key; }
+
+    public int getOffset() { return offset; }
+
+    public int getEndOffset() { return offset + text.length(); }
+
+    /**
+     * 1-based line of the first character
+     */
+    public int getLine() { return line; }
+
+    /**
+     * Keyword or identifier - the lexer cannot always tell them apart, so consumers match on both
+     */
+    public boolean isWord() {
+        return type == Type.KEYWORD || type == Type.IDENTIFIER;
+    }
+
+    /**
+     * Word with the given upper-case text
+     */
+    public boolean isWord(String upperCaseWord) {
+        return isWord() && key.equals(upperCaseWord);
+    }
+
+    public boolean is(Type expected) {
+        return type == expected;
+    }
+
+    /**
+     * Same token moved by an edit before it; returns this token when nothing moves
+     */
+    public AbapToken shift(int offsetDelta, int lineDelta) {
+        if (offsetDelta == 0 && lineDelta == 0) {
+            return this;
+        }
+        return new AbapToken(type, text, key, offset + offsetDelta, line + lineDelta);
+    }
+
+    @Override
+    public String toString() {
+        return type + "(" + text + ")@" + line;
+    }
+}
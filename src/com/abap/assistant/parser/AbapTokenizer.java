@@ -0,0 +1,258 @@
+package com.abap.assistant.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import com.abap.assistant.parser.AbapToken.Type;
+
+/**
+ * Single-pass ABAP lexer
+ * Handles full-line (*) and end-of-line (") comments, '...', `...` and |...| literals,
+ * chain colons, period terminators, namespaces (/ABC/NAME), field symbols (<fs>)
+ * and component selectors (ls_row-field)
+ */
+public class AbapTokenizer {
+
+    private static final Set<String> KEYWORDS = new HashSet<>(Arrays.asList(
+        "ABAP-SOURCE", "ADD", "AND", "APPEND", "AS", "ASSIGN", "AT", "AUTHORITY-CHECK", "BEGIN", "BY", "CALL",
+        "CASE", "CATCH", "CHECK", "CLASS", "CLASS-DATA", "CLASS-METHODS", "CLEAR", "COLLECT", "COMMIT",
+        "CONCATENATE", "CONDENSE", "CONSTANTS", "CONTINUE", "CORRESPONDING", "CREATE", "DATA", "DEFAULT",
+        "DEFINITION", "DELETE", "DESCRIBE", "DO", "ELSE", "ELSEIF", "END", "ENDCASE", "ENDCLASS", "ENDDO",
+        "ENDFORM", "ENDFUNCTION", "ENDIF", "ENDINTERFACE", "ENDLOOP", "ENDMETHOD", "ENDMODULE", "ENDSELECT",
+        "ENDTRY", "ENDWHILE", "ENDAT", "ENDON", "ENDPROVIDE", "EQ", "EVENTS", "EXCEPTIONS", "EXIT", "EXPORTING",
+        "FIELD-SYMBOL", "FIELD-SYMBOLS", "FIELDS", "FOR", "FORM", "FREE", "FROM", "FUNCTION", "GE", "GT",
+        "HASHED", "IF", "IMPLEMENTATION", "IMPORTING", "IN", "INCLUDE", "INITIAL", "INNER", "INSERT", "INTERFACE",
+        "INTO", "IS", "JOIN", "KEY", "LE", "LEFT", "LIKE", "LOOP", "LT", "METHOD", "METHODS", "MODIFY", "MODULE",
+        "MOVE", "NE", "NEW", "NOT", "OF", "ON", "OR", "PARAMETERS", "PERFORM", "PRIVATE", "PROTECTED", "PUBLIC",
+        "RAISE", "RAISING", "READ", "REF", "REFRESH", "REPORT", "RETURN", "RETURNING", "ROLLBACK", "SECTION",
+        "SELECT", "SELECT-OPTIONS", "SET", "SINGLE", "SORT", "SORTED", "SPLIT", "STANDARD", "STATICS",
+        "TABLE", "TABLES", "TO", "TRY", "TYPE", "TYPES", "UP", "UPDATE", "USING", "VALUE", "WHEN", "WHERE",
+        "WHILE", "WITH", "WRITE"));
+
+    /**
+     * Tokenize a complete source text
+     */
+    public List<AbapToken> tokenize(CharSequence source) {
+        return tokenize(source, 0, source.length(), 1);
+    }
+
+    /**
+     * Tokenize a range of a larger text - offsets stay absolute, lines count from startLine
+     * The range must begin at a line start so full-line comments are recognized
+     */
+    public List<AbapToken> tokenize(CharSequence source, int start, int end, int startLine) {
+        List<AbapToken> tokens = new ArrayList<>(Math.max(16, (end - start) / 5));
+        int line = startLine;
+        int lineStart = start;
+        int i = start;
+
+        while (i < end) {
+            char c = source.charAt(i);
+
+            if (c == '\n') {
+                line++;
+                lineStart = ++i;
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+
+            int tokenStart = i;
+            if ((c == '*' && i == lineStart) || c == '"') {
+                i = endOfLine(source, i, end);
+                tokens.add(token(Type.COMMENT, source, tokenStart, i, line));
+            } else if (c == '\'' || c == '`') {
+                i = endOfQuoted(source, i, end, c);
+                tokens.add(token(Type.STRING_LITERAL, source, tokenStart, i, line));
+            } else if (c == '|') {
+                int tokenLine = line;
+                int literalEnd = endOfTemplate(source, i, end);
+                for (int j = i; j < literalEnd; j++) {
+                    if (source.charAt(j) == '\n') {
+                        line++;
+                        lineStart = j + 1;
+                    }
+                }
+                i = literalEnd;
+                tokens.add(token(Type.STRING_LITERAL, source, tokenStart, i, tokenLine));
+            } else if (c == ':') {
+                tokens.add(token(Type.COLON, source, i, ++i, line));
+            } else if (c == ',') {
+                tokens.add(token(Type.COMMA, source, i, ++i, line));
+            } else if (c == '.') {
+                tokens.add(token(Type.PERIOD, source, i, ++i, line));
+            } else if (c == '(') {
+                tokens.add(token(Type.LPAREN, source, i, ++i, line));
+            } else if (c == ')') {
+                tokens.add(token(Type.RPAREN, source, i, ++i, line));
+            } else if (isDigit(c)) {
+                while (i < end && isDigit(source.charAt(i))) {
+                    i++;
+                }
+                tokens.add(token(Type.NUMBER, source, tokenStart, i, line));
+            } else if (isWordStart(source, i, end)) {
+                i = endOfWord(source, i, end);
+                String text = source.subSequence(tokenStart, i).toString();
+                String key = text.toUpperCase(Locale.ROOT);
+                tokens.add(new AbapToken(KEYWORDS.contains(key) ? Type.KEYWORD : Type.IDENTIFIER,
+                    text, key.equals(text) ? text : key, tokenStart, line));
+            } else {
+                i = endOfOperator(source, i, end);
+                tokens.add(token(Type.OPERATOR, source, tokenStart, i, line));
+            }
+        }
+        return tokens;
+    }
+
+    private static AbapToken token(Type type, CharSequence source, int start, int end, int line) {
+        String text = source.subSequence(start, end).toString();
+        return new AbapToken(type, text, text, start, line);
+    }
+
+    private static int endOfLine(CharSequence source, int i, int end) {
+        while (i < end && source.charAt(i) != '\n') {
+            i++;
+        }
+        // Keep a trailing \r (CRLF files) out of the comment text
+        return i > 0 && source.charAt(i - 1) == '\r' ? i - 1 : i;
+    }
+
+    /**
+     * '...' and `...` literals - the delimiter is escaped by doubling it; a literal never spans lines
+     */
+    private static int endOfQuoted(CharSequence source, int i, int end, char delimiter) {
+        i++;
+        while (i < end) {
+            char c = source.charAt(i);
+            if (c == '\n') {
+                return i; // Unterminated
+            }
+            i++;
+            if (c == delimiter) {
+                if (i < end && source.charAt(i) == delimiter) {
+                    i++;
+                } else {
+                    return i;
+                }
+            }
+        }
+        return i;
+    }
+
+    /**
+     * |...| string templates - backslash escapes, embedded expressions in { }
+     */
+    private static int endOfTemplate(CharSequence source, int i, int end) {
+        int depth = 0;
+        i++;
+        while (i < end) {
+            char c = source.charAt(i++);
+            if (c == '\\' && depth == 0) {
+                i++;
+            } else if (c == '{') {
+                depth++;
+            } else if (c == '}' && depth > 0) {
+                depth--;
+            } else if (c == '|' && depth == 0) {
+                return i;
+            }
+        }
+        return Math.min(i, end);
+    }
+
+    private static boolean isWordStart(CharSequence source, int i, int end) {
+        char c = source.charAt(i);
+        if (isLetter(c) || c == '_' || c == '%' || c == '$' || c == '!') {
+            return true;
+        }
+        if (c == '<') {
+            return fieldSymbolEnd(source, i, end) > 0;
+        }
+        if (c == '/') {
+            return namespaceEnd(source, i, end) > 0;
+        }
+        return false;
+    }
+
+    private static int endOfWord(CharSequence source, int i, int end) {
+        char c = source.charAt(i);
+        if (c == '<') {
+            i = fieldSymbolEnd(source, i, end);
+        } else if (c == '/') {
+            i = namespaceEnd(source, i, end);
+        } else {
+            i++;
+        }
+
+        while (i < end) {
+            c = source.charAt(i);
+            if (isWordPart(c)) {
+                i++;
+            } else if ((c == '-' || c == '~') && i + 1 < end && isWordPart(source.charAt(i + 1))) {
+                // Component selector (ls_row-field) or interface component (if~method), not minus
+                i++;
+            } else if (c == '/' && namespaceEnd(source, i, end) > 0) {
+                i = namespaceEnd(source, i, end);
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * End of <name> field symbol, or -1
+     */
+    private static int fieldSymbolEnd(CharSequence source, int i, int end) {
+        int j = i + 1;
+        if (j >= end || !(isLetter(source.charAt(j)) || source.charAt(j) == '_')) {
+            return -1;
+        }
+        while (j < end && isWordPart(source.charAt(j))) {
+            j++;
+        }
+        return j < end && source.charAt(j) == '>' ? j + 1 : -1;
+    }
+
+    /**
+     * End of /NAMESPACE/ prefix, or -1 when the slash is an operator
+     */
+    private static int namespaceEnd(CharSequence source, int i, int end) {
+        int j = i + 1;
+        while (j < end && (isLetter(source.charAt(j)) || isDigit(source.charAt(j)) || source.charAt(j) == '_')) {
+            j++;
+        }
+        return j > i + 1 && j < end && source.charAt(j) == '/' ? j + 1 : -1;
+    }
+
+    private static int endOfOperator(CharSequence source, int i, int end) {
+        char c = source.charAt(i);
+        // Host variable escape, constructor inference and similar prefixes stand alone
+        if (c == '@' || c == '#' || c == '?') {
+            return i + 1;
+        }
+        i++;
+        while (i < end && "=<>+-*/&".indexOf(source.charAt(i)) >= 0 && !isWordStart(source, i, end)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isWordPart(char c) {
+        return isLetter(c) || isDigit(c) || c == '_' || c == '$' || c == '%';
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c > 127 && Character.isLetter(c));
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,251 @@
+package com.abap.assistant.retrieval;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * In-memory inverted index over document chunks, ranked with Okapi BM25
+ * Terms are lower-cased letter/digit/underscore runs; identifiers such as ZSD_SALES_ORDER are also
+ * indexed by their parts so prose queries find them
+ */
+public class Bm25Index {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int MIN_TERM_LENGTH = 2;
+
+    // Common English and Spanish words that only add noise to the ranking
+    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+        "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "has", "in", "is", "it", "of", "on", "or",
+        "that", "the", "this", "to", "was", "were", "will", "with", "de", "del", "el", "en", "es", "la", "las",
+        "los", "para", "por", "que", "se", "su", "un", "una", "y"));
+
+    // Chunk id = position in these lists; removed chunks leave a null slot
+    private final List<DocumentChunk> chunks = new ArrayList<>();
+    private final List<String[]> chunkTerms = new ArrayList<>();
+    private int[] chunkLengths = new int[64];
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<String, List<Integer>> chunkIdsByDocument = new HashMap<>();
+    private int liveChunks;
+    private long totalLength;
+
+    /**
+     * Index the chunks of a document, replacing any previous version of it
+     */
+    public void addDocument(String documentPath, List<DocumentChunk> documentChunks) {
+        removeDocument(documentPath);
+        List<Integer> ids = new ArrayList<>(documentChunks.size());
+        for (DocumentChunk chunk : documentChunks) {
+            int id = chunks.size();
+            Map<String, Integer> frequencies = new HashMap<>();
+            int length = 0;
+            for (String term : terms(chunk.getText())) {
+                frequencies.merge(term, 1, Integer::sum);
+                length++;
+            }
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), k -> new Postings()).add(id, entry.getValue());
+            }
+            chunks.add(chunk);
+            chunkTerms.add(frequencies.keySet().toArray(new String[0]));
+            if (id == chunkLengths.length) {
+                chunkLengths = Arrays.copyOf(chunkLengths, id * 2);
+            }
+            chunkLengths[id] = length;
+            totalLength += length;
+            liveChunks++;
+            ids.add(id);
+        }
+        chunkIdsByDocument.put(documentPath, ids);
+    }
+
+    public void removeDocument(String documentPath) {
+        List<Integer> ids = chunkIdsByDocument.remove(documentPath);
+        if (ids == null) {
+            return;
+        }
+        for (int id : ids) {
+            for (String term : chunkTerms.get(id)) {
+                Postings termPostings = postings.get(term);
+                termPostings.remove(id);
+                if (termPostings.size == 0) {
+                    postings.remove(term);
+                }
+            }
+            chunks.set(id, null);
+            chunkTerms.set(id, null);
+            totalLength -= chunkLengths[id];
+            liveChunks--;
+        }
+        if (liveChunks == 0) {
+            clear(); // Reuse ids from 0 once nothing is left
+        }
+    }
+
+    public void clear() {
+        chunks.clear();
+        chunkTerms.clear();
+        postings.clear();
+        chunkIdsByDocument.clear();
+        liveChunks = 0;
+        totalLength = 0;
+    }
+
+    /**
+     * Chunks of a document in text order, or an empty list
+     */
+    public List<DocumentChunk> getChunks(String documentPath) {
+        List<DocumentChunk> documentChunks = new ArrayList<>();
+        for (int id : chunkIdsByDocument.getOrDefault(documentPath, new ArrayList<>())) {
+            documentChunks.add(chunks.get(id));
+        }
+        return documentChunks;
+    }
+
+    public int getChunkCount() {
+        return liveChunks;
+    }
+
+    public int getTermCount() {
+        return postings.size();
+    }
+
+    /**
+     * Up to k chunks with a positive score, best first; ties keep index order
+     *
+     * @param queryWeights weight of each query term, e.g. lower for terms taken from code than from the prompt
+     * @param documentFilter documents whose chunks may be returned
+     */
+    public List<Hit> search(Map<String, Double> queryWeights, int k, Predicate<String> documentFilter) {
+        if (liveChunks == 0 || k <= 0) {
+            return new ArrayList<>();
+        }
+        double averageLength = Math.max(1.0, (double) totalLength / liveChunks);
+        double[] scores = new double[chunks.size()];
+        for (Map.Entry<String, Double> query : queryWeights.entrySet()) {
+            Postings termPostings = postings.get(query.getKey());
+            if (termPostings == null) {
+                continue;
+            }
+            double idf = Math.log(1 + (liveChunks - termPostings.size + 0.5) / (termPostings.size + 0.5));
+            for (int i = 0; i < termPostings.size; i++) {
+                int id = termPostings.chunkIds[i];
+                int frequency = termPostings.frequencies[i];
+                double norm = K1 * (1 - B + B * chunkLengths[id] / averageLength);
+                scores[id] += query.getValue() * idf * frequency * (K1 + 1) / (frequency + norm);
+            }
+        }
+
+        // Min-heap of the best k so far
+        PriorityQueue<Hit> best = new PriorityQueue<>(k + 1, (a, b) -> a.score != b.score
+            ? Double.compare(a.score, b.score) : Integer.compare(b.id, a.id));
+        Map<String, Boolean> allowed = new HashMap<>();
+        for (int id = 0; id < scores.length; id++) {
+            DocumentChunk chunk = chunks.get(id);
+            if (scores[id] <= 0 || chunk == null
+                    || !allowed.computeIfAbsent(chunk.getDocumentPath(), documentFilter::test)) {
+                continue;
+            }
+            best.add(new Hit(chunk, scores[id], id));
+            if (best.size() > k) {
+                best.poll();
+            }
+        }
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort((a, b) -> a.score != b.score ? Double.compare(b.score, a.score) : Integer.compare(a.id, b.id));
+        return hits;
+    }
+
+    /**
+     * Index terms of a text in order, repeats included
+     */
+    public static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        int i = 0;
+        int length = text.length();
+        while (i < length) {
+            while (i < length && !isTermChar(text.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < length && isTermChar(text.charAt(i))) {
+                i++;
+            }
+            if (start < i) {
+                String word = text.substring(start, i).toLowerCase(Locale.ROOT);
+                addTerm(terms, word);
+                if (word.indexOf('_') >= 0) {
+                    for (String part : word.split("_")) {
+                        addTerm(terms, part);
+                    }
+                }
+            }
+        }
+        return terms;
+    }
+
+    private static void addTerm(List<String> terms, String term) {
+        if (term.length() >= MIN_TERM_LENGTH && !STOP_WORDS.contains(term)) {
+            terms.add(term);
+        }
+    }
+
+    private static boolean isTermChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    /**
+     * A ranked chunk
+     */
+    public static final class Hit {
+        private final DocumentChunk chunk;
+        private final double score;
+        private final int id;
+
+        Hit(DocumentChunk chunk, double score, int id) {
+            this.chunk = chunk;
+            this.score = score;
+            this.id = id;
+        }
+
+        public DocumentChunk getChunk() { return chunk; }
+
+        public double getScore() { return score; }
+    }
+
+    /**
+     * Chunk ids containing a term, ascending, with the term frequency in each
+     */
+    private static final class Postings {
+        int[] chunkIds = new int[4];
+        int[] frequencies = new int[4];
+        int size;
+
+        void add(int chunkId, int frequency) {
+            if (size == chunkIds.length) {
+                chunkIds = Arrays.copyOf(chunkIds, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            chunkIds[size] = chunkId;
+            frequencies[size] = frequency;
+            size++;
+        }
+
+        void remove(int chunkId) {
+            int index = Arrays.binarySearch(chunkIds, 0, size, chunkId);
+            if (index >= 0) {
+                System.arraycopy(chunkIds, index + 1, chunkIds, index, size - index - 1);
+                System.arraycopy(frequencies, index + 1, frequencies, index, size - index - 1);
+                size--;
+            }
+        }
+    }
+}
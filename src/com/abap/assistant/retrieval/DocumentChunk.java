@@ -0,0 +1,53 @@
+package com.abap.assistant.retrieval;
+
+import com.abap.assistant.utils.TokenCounter;
+
+/**
+ * Contiguous passage of an attached document, the unit that retrieval ranks and prompts include
+ */
+public final class DocumentChunk {
+
+    private final String documentPath;
+    private final int index;
+    private final int startOffset;
+    private final String text;
+    private volatile int tokenCount = -1;
+
+    public DocumentChunk(String documentPath, int index, int startOffset, String text) {
+        this.documentPath = documentPath;
+        this.index = index;
+        this.startOffset = startOffset;
+        this.text = text;
+    }
+
+    public String getDocumentPath() { return documentPath; }
+
+    /**
+     * Position of the chunk within its document, from 0
+     */
+    public int getIndex() { return index; }
+
+    /**
+     * Offset of the first character in the document text
+     */
+    public int getStartOffset() { return startOffset; }
+
+    public String getText() { return text; }
+
+    /**
+     * Prompt tokens of the text, counted on first use
+     */
+    public int getTokenCount() {
+        int count = tokenCount;
+        if (count < 0) {
+            count = TokenCounter.getInstance().countTokens(text);
+            tokenCount = count;
+        }
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return documentPath + "#" + index;
+    }
+}
@@ -0,0 +1,124 @@
+package com.abap.assistant.retrieval;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits document text into chunks of about a target size along paragraph boundaries
+ * Consecutive short paragraphs share a chunk; a paragraph longer than the target is cut at the last
+ * line break, sentence end or space that fits, so no chunk exceeds the target
+ */
+public class DocumentChunker {
+
+    public static final int DEFAULT_CHUNK_CHARS = 1200;
+
+    private final int targetChars;
+
+    public DocumentChunker() {
+        this(DEFAULT_CHUNK_CHARS);
+    }
+
+    public DocumentChunker(int targetChars) {
+        this.targetChars = Math.max(100, targetChars);
+    }
+
+    public int getTargetChars() {
+        return targetChars;
+    }
+
+    public List<DocumentChunk> chunk(String documentPath, String content) {
+        List<DocumentChunk> chunks = new ArrayList<>();
+        int chunkStart = -1;
+        int chunkEnd = -1;
+
+        int position = 0;
+        while (position < content.length()) {
+            int paragraphEnd = paragraphEnd(content, position);
+            int start = skipWhitespace(content, position, paragraphEnd);
+            int end = trimEnd(content, start, paragraphEnd);
+            position = paragraphEnd;
+            if (start >= end) {
+                continue;
+            }
+
+            if (chunkStart >= 0 && end - chunkStart <= targetChars) {
+                chunkEnd = end; // Paragraph fits in the open chunk
+                continue;
+            }
+            if (chunkStart >= 0) {
+                add(chunks, documentPath, content, chunkStart, chunkEnd);
+                chunkStart = -1;
+            }
+            // Cut an oversized paragraph; its last piece stays open for the next paragraphs
+            while (end - start > targetChars) {
+                int cut = cutPoint(content, start, start + targetChars);
+                add(chunks, documentPath, content, start, trimEnd(content, start, cut));
+                start = skipWhitespace(content, cut, end);
+            }
+            chunkStart = start;
+            chunkEnd = end;
+        }
+        if (chunkStart >= 0) {
+            add(chunks, documentPath, content, chunkStart, chunkEnd);
+        }
+        return chunks;
+    }
+
+    private static void add(List<DocumentChunk> chunks, String documentPath, String content, int start, int end) {
+        chunks.add(new DocumentChunk(documentPath, chunks.size(), start, content.substring(start, end)));
+    }
+
+    /**
+     * End of the paragraph starting at position: just past the blank line that ends it, or the text end
+     */
+    private static int paragraphEnd(String content, int position) {
+        int lineEnd = content.indexOf('\n', position);
+        while (lineEnd >= 0) {
+            int next = lineEnd + 1;
+            int blankEnd = next;
+            while (blankEnd < content.length() && (content.charAt(blankEnd) == ' ' || content.charAt(blankEnd) == '\t'
+                    || content.charAt(blankEnd) == '\r')) {
+                blankEnd++;
+            }
+            if (blankEnd < content.length() && content.charAt(blankEnd) == '\n') {
+                return blankEnd + 1;
+            }
+            lineEnd = content.indexOf('\n', next);
+        }
+        return content.length();
+    }
+
+    /**
+     * Best place to cut within (start, limit]: after a line break, then a sentence end, then a space
+     */
+    private static int cutPoint(String content, int start, int limit) {
+        int minimum = start + (limit - start) / 2;
+        int lineBreak = content.lastIndexOf('\n', limit - 1);
+        if (lineBreak >= minimum) {
+            return lineBreak + 1;
+        }
+        int sentence = content.lastIndexOf(". ", limit - 2);
+        if (sentence >= minimum) {
+            return sentence + 2;
+        }
+        int space = content.lastIndexOf(' ', limit - 1);
+        if (space >= minimum) {
+            return space + 1;
+        }
+        return limit;
+    }
+
+    private static int skipWhitespace(String content, int start, int end) {
+        while (start < end && Character.isWhitespace(content.charAt(start))) {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimEnd(String content, int start, int end) {
+        while (end > start && Character.isWhitespace(content.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+}
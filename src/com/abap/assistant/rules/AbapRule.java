@@ -0,0 +1,94 @@
+package com.abap.assistant.rules;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Static analysis rule evaluated by {@link AbapRuleEngine}
+ * Keyword rules declare the substrings they test so the engine can match all of them in one scan;
+ * token rules inspect the shared token stream; located rules report each match with its lines
+ */
+public final class AbapRule {
+
+    public enum Category {
+        PATTERN,
+        PERFORMANCE,
+        MODERNIZATION,
+        ARCHITECTURE
+    }
+
+    private final String id;
+    private final Category category;
+    private final String message;
+    /**
+     * Finds the places a rule applies to
+     */
+    @FunctionalInterface
+    public interface Detector {
+        void detect(RuleContext context, Collector matches);
+    }
+
+    /**
+     * Receives the 1-based, inclusive line range of each match (0, 0 for the file as a whole)
+     */
+    @FunctionalInterface
+    public interface Collector {
+        void add(int startLine, int endLine);
+    }
+
+    private final List<String> keywords;
+    private final Detector detector;
+
+    private AbapRule(String id, Category category, String message, List<String> keywords, Detector detector) {
+        this.id = id;
+        this.category = category;
+        this.message = message;
+        this.keywords = keywords;
+        this.detector = detector;
+    }
+
+    /**
+     * Rule over case-insensitive substring presence; the condition may only ask about the listed keywords
+     */
+    public static AbapRule keywords(String id, Category category, String message,
+                                    Predicate<RuleContext> condition, String... keywords) {
+        return new AbapRule(id, category, message, Collections.unmodifiableList(Arrays.asList(keywords)),
+            wholeFile(condition));
+    }
+
+    /**
+     * Rule over the token stream (comments and literals are tokens of their own)
+     */
+    public static AbapRule tokens(String id, Category category, String message, Predicate<RuleContext> condition) {
+        return new AbapRule(id, category, message, Collections.emptyList(), wholeFile(condition));
+    }
+
+    /**
+     * Rule reporting every place it applies, typically found by walking {@link RuleContext#getStatements()}
+     */
+    public static AbapRule located(String id, Category category, String message, Detector detector) {
+        return new AbapRule(id, category, message, Collections.emptyList(), detector);
+    }
+
+    public String getId() { return id; }
+
+    public Category getCategory() { return category; }
+
+    public String getMessage() { return message; }
+
+    public List<String> getKeywords() { return keywords; }
+
+    void detect(RuleContext context, Collector matches) {
+        detector.detect(context, matches);
+    }
+
+    private static Detector wholeFile(Predicate<RuleContext> condition) {
+        return (context, matches) -> {
+            if (condition.test(context)) {
+                matches.add(0, 0);
+            }
+        };
+    }
+}
@@ -0,0 +1,182 @@
+package com.abap.assistant.rules;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.abap.assistant.parser.AbapParser;
+import com.abap.assistant.parser.AbapSyntaxTree;
+
+/**
+ * Evaluates a fixed rule set over a source text in time linear in its size
+ * The text is parsed once (shared with the other analyzers through the parser cache) and scanned once
+ * by an Aho-Corasick automaton holding the keywords of every rule; rules then only read precomputed
+ * counts or walk the shared tokens, statements and blocks
+ */
+public class AbapRuleEngine {
+
+    public static final String PARSE_TIMING = "parse";
+    public static final String KEYWORD_SCAN_TIMING = "keyword-scan";
+    private static final int MAX_LISTED_LOCATIONS = 5;
+
+    private final List<AbapRule> rules;
+    private final KeywordAutomaton automaton;
+    private final Map<String, Integer> keywordIds = new LinkedHashMap<>();
+    private final LongAdder evaluations = new LongAdder();
+    private final LongAdder parseNanos = new LongAdder();
+    private final LongAdder scanNanos = new LongAdder();
+    private final LongAdder[] ruleNanos;
+
+    public AbapRuleEngine(List<AbapRule> rules) {
+        this.rules = Collections.unmodifiableList(new ArrayList<>(rules));
+        for (AbapRule rule : rules) {
+            for (String keyword : rule.getKeywords()) {
+                keywordIds.putIfAbsent(keyword.toUpperCase(Locale.ROOT), keywordIds.size());
+            }
+        }
+        this.automaton = new KeywordAutomaton(new ArrayList<>(keywordIds.keySet()));
+        this.ruleNanos = new LongAdder[rules.size()];
+        for (int i = 0; i < ruleNanos.length; i++) {
+            ruleNanos[i] = new LongAdder();
+        }
+    }
+
+    public List<AbapRule> getRules() {
+        return rules;
+    }
+
+    /**
+     * Run every rule over the source; findings keep rule declaration order
+     */
+    public Result evaluate(String source) {
+        long start = System.nanoTime();
+        AbapSyntaxTree tree = AbapParser.getInstance().getTree(source);
+        return evaluate(tree, System.nanoTime() - start);
+    }
+
+    /**
+     * Run every rule over an already parsed source
+     */
+    public Result evaluate(AbapSyntaxTree tree) {
+        return evaluate(tree, 0);
+    }
+
+    private Result evaluate(AbapSyntaxTree tree, long parseTime) {
+        Map<String, Long> timings = new LinkedHashMap<>();
+        record(timings, PARSE_TIMING, parseNanos, parseTime);
+
+        long start = System.nanoTime();
+        int[] counts = new int[automaton.getKeywordCount()];
+        int[] firstOffsets = new int[automaton.getKeywordCount()];
+        automaton.scan(tree.getSource(), counts, firstOffsets);
+        record(timings, KEYWORD_SCAN_TIMING, scanNanos, System.nanoTime() - start);
+
+        RuleContext context = new RuleContext(tree, keywordIds, counts, firstOffsets);
+        List<RuleFinding> findings = new ArrayList<>();
+        for (int i = 0; i < rules.size(); i++) {
+            AbapRule rule = rules.get(i);
+            long ruleStart = System.nanoTime();
+            rule.detect(context, (startLine, endLine) ->
+                findings.add(new RuleFinding(rule, rule.getMessage(), startLine, endLine)));
+            record(timings, rule.getId(), ruleNanos[i], System.nanoTime() - ruleStart);
+        }
+        evaluations.increment();
+        return new Result(findings, timings);
+    }
+
+    /**
+     * Average time per evaluation of the shared passes and of each rule, slowest rules first
+     */
+    public String getTimingSummary() {
+        long runs = Math.max(1, evaluations.sum());
+        StringBuilder summary = new StringBuilder();
+        summary.append(String.format("Rule engine: %d evaluations, avg %s %.3f ms, %s %.3f ms%n", evaluations.sum(),
+            PARSE_TIMING, millis(parseNanos.sum() / runs), KEYWORD_SCAN_TIMING, millis(scanNanos.sum() / runs)));
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < rules.size(); i++) {
+            order.add(i);
+        }
+        order.sort((a, b) -> Long.compare(ruleNanos[b].sum(), ruleNanos[a].sum()));
+        for (int i : order) {
+            summary.append(String.format("  %-24s %.3f ms%n", rules.get(i).getId(), millis(ruleNanos[i].sum() / runs)));
+        }
+        return summary.toString();
+    }
+
+    private static void record(Map<String, Long> timings, String key, LongAdder total, long nanos) {
+        timings.put(key, nanos);
+        total.add(nanos);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Findings of one evaluation and the nanoseconds spent in each pass and rule
+     */
+    public static final class Result {
+        private final List<RuleFinding> findings;
+        private final Map<String, Long> timingsNanos;
+
+        Result(List<RuleFinding> findings, Map<String, Long> timingsNanos) {
+            this.findings = findings;
+            this.timingsNanos = timingsNanos;
+        }
+
+        public List<RuleFinding> getFindings() {
+            return findings;
+        }
+
+        /**
+         * One message per rule that fired, listing the first located line ranges
+         */
+        public List<String> getMessages(AbapRule.Category category) {
+            List<String> messages = new ArrayList<>();
+            for (int i = 0; i < findings.size(); ) {
+                RuleFinding first = findings.get(i);
+                int end = i;
+                while (end < findings.size() && findings.get(end).getRule() == first.getRule()) {
+                    end++;
+                }
+                if (first.getCategory() == category) {
+                    messages.add(first.getMessage() + formatLines(findings.subList(i, end)));
+                }
+                i = end;
+            }
+            return messages;
+        }
+
+        private static String formatLines(List<RuleFinding> matches) {
+            StringBuilder lines = new StringBuilder();
+            int shown = 0;
+            for (RuleFinding match : matches) {
+                if (!match.hasLines()) {
+                    continue;
+                }
+                if (shown == MAX_LISTED_LOCATIONS) {
+                    lines.append(", +").append(matches.size() - shown).append(" more");
+                    break;
+                }
+                lines.append(shown++ == 0 ? "" : ", ").append(match.getStartLine());
+                if (match.getEndLine() > match.getStartLine()) {
+                    lines.append('-').append(match.getEndLine());
+                }
+            }
+            if (shown == 0) {
+                return "";
+            }
+            boolean singleLine = shown == 1 && matches.size() == 1 && lines.indexOf("-") < 0;
+            return (singleLine ? " (line " : " (lines ") + lines + ")";
+        }
+
+        public Map<String, Long> getTimingsNanos() {
+            return timingsNanos;
+        }
+    }
+}
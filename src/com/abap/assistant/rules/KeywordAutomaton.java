@@ -0,0 +1,144 @@
+package com.abap.assistant.rules;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Aho-Corasick automaton that finds every occurrence of a fixed keyword set in one pass
+ * Matching is case-insensitive: keywords are stored upper case and input characters are upper-cased
+ * as they are read, so the source is never copied
+ */
+public class KeywordAutomaton {
+
+    private final String[] keywords;
+    private final Map<Character, Integer> alphabet = new HashMap<>();
+    private final int[] asciiAlphabet = new int[128];
+    // transitions[state][symbol]; symbol 0 stands for every character that no keyword contains
+    private final int[][] transitions;
+    // Keyword ids ending at each state, including those reached through failure links
+    private final int[][] outputs;
+
+    public KeywordAutomaton(List<String> keywordList) {
+        this.keywords = new String[keywordList.size()];
+        for (int i = 0; i < keywords.length; i++) {
+            keywords[i] = keywordList.get(i).toUpperCase(Locale.ROOT);
+            for (char c : keywords[i].toCharArray()) {
+                if (!alphabet.containsKey(c)) {
+                    alphabet.put(c, alphabet.size() + 1);
+                }
+            }
+        }
+        for (Map.Entry<Character, Integer> entry : alphabet.entrySet()) {
+            if (entry.getKey() < 128) {
+                asciiAlphabet[entry.getKey()] = entry.getValue();
+            }
+        }
+
+        int symbols = alphabet.size() + 1;
+        List<int[]> trie = new ArrayList<>();
+        List<List<Integer>> terminal = new ArrayList<>();
+        trie.add(newState(symbols));
+        terminal.add(new ArrayList<>());
+
+        for (int id = 0; id < keywords.length; id++) {
+            int state = 0;
+            for (char c : keywords[id].toCharArray()) {
+                int symbol = alphabet.get(c);
+                if (trie.get(state)[symbol] < 0) {
+                    trie.get(state)[symbol] = trie.size();
+                    trie.add(newState(symbols));
+                    terminal.add(new ArrayList<>());
+                }
+                state = trie.get(state)[symbol];
+            }
+            terminal.get(state).add(id);
+        }
+
+        // Breadth-first: complete the goto function into a DFA and merge outputs along failure links
+        transitions = trie.toArray(new int[0][]);
+        outputs = new int[transitions.length][];
+        int[] failure = new int[transitions.length];
+        Queue<Integer> queue = new ArrayDeque<>();
+        outputs[0] = toArray(terminal.get(0));
+        for (int symbol = 0; symbol < symbols; symbol++) {
+            int next = transitions[0][symbol];
+            if (next < 0) {
+                transitions[0][symbol] = 0;
+            } else {
+                failure[next] = 0;
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.remove();
+            List<Integer> merged = new ArrayList<>(terminal.get(state));
+            for (int id : outputs[failure[state]]) {
+                merged.add(id);
+            }
+            outputs[state] = toArray(merged);
+            for (int symbol = 0; symbol < symbols; symbol++) {
+                int next = transitions[state][symbol];
+                if (next < 0) {
+                    transitions[state][symbol] = transitions[failure[state]][symbol];
+                } else {
+                    failure[next] = transitions[failure[state]][symbol];
+                    queue.add(next);
+                }
+            }
+        }
+    }
+
+    public int getKeywordCount() {
+        return keywords.length;
+    }
+
+    public String getKeyword(int id) {
+        return keywords[id];
+    }
+
+    /**
+     * Scan the text once; counts[id] is the number of (possibly overlapping) occurrences of keyword id,
+     * firstOffsets[id] the start offset of its first occurrence or -1
+     */
+    public void scan(CharSequence text, int[] counts, int[] firstOffsets) {
+        Arrays.fill(counts, 0);
+        Arrays.fill(firstOffsets, -1);
+        int state = 0;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            state = transitions[state][symbolOf(Character.toUpperCase(text.charAt(i)))];
+            for (int id : outputs[state]) {
+                if (counts[id]++ == 0) {
+                    firstOffsets[id] = i - keywords[id].length() + 1;
+                }
+            }
+        }
+    }
+
+    private int symbolOf(char c) {
+        if (c < 128) {
+            return asciiAlphabet[c];
+        }
+        Integer symbol = alphabet.get(c);
+        return symbol != null ? symbol : 0;
+    }
+
+    private static int[] newState(int symbols) {
+        int[] state = new int[symbols];
+        Arrays.fill(state, -1);
+        return state;
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        int[] array = new int[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+}
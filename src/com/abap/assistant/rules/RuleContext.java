@@ -0,0 +1,85 @@
+package com.abap.assistant.rules;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.abap.assistant.parser.AbapStatement;
+import com.abap.assistant.parser.AbapSyntaxTree;
+import com.abap.assistant.parser.AbapToken;
+import com.abap.assistant.utils.LineIndex;
+
+/**
+ * Everything the rules may look at, computed once per source text
+ */
+public final class RuleContext {
+
+    private final AbapSyntaxTree tree;
+    private final Map<String, Integer> keywordIds;
+    private final int[] keywordCounts;
+    private final int[] keywordFirstOffsets;
+    private LineIndex lineIndex;
+
+    RuleContext(AbapSyntaxTree tree, Map<String, Integer> keywordIds, int[] keywordCounts, int[] keywordFirstOffsets) {
+        this.tree = tree;
+        this.keywordIds = keywordIds;
+        this.keywordCounts = keywordCounts;
+        this.keywordFirstOffsets = keywordFirstOffsets;
+    }
+
+    public String getSource() {
+        return tree.getSource();
+    }
+
+    public List<AbapToken> getTokens() {
+        return tree.getTokens();
+    }
+
+    public List<AbapStatement> getStatements() {
+        return tree.getStatements();
+    }
+
+    /**
+     * Block structure of the source, for rules that depend on nesting
+     */
+    public AbapSyntaxTree getTree() {
+        return tree;
+    }
+
+    /**
+     * Whether the source contains the keyword, ignoring case
+     */
+    public boolean has(String keyword) {
+        return count(keyword) > 0;
+    }
+
+    /**
+     * Occurrences of the keyword, ignoring case
+     */
+    public int count(String keyword) {
+        return keywordCounts[idOf(keyword)];
+    }
+
+    /**
+     * 1-based line of the first occurrence of the keyword, or 0
+     */
+    public int firstLine(String keyword) {
+        int offset = keywordFirstOffsets[idOf(keyword)];
+        return offset < 0 ? 0 : getLineIndex().getLineNumber(offset);
+    }
+
+    public LineIndex getLineIndex() {
+        if (lineIndex == null) {
+            lineIndex = new LineIndex(tree.getSource());
+        }
+        return lineIndex;
+    }
+
+    private int idOf(String keyword) {
+        Integer id = keywordIds.get(keyword.toUpperCase(Locale.ROOT));
+        if (id == null) {
+            throw new IllegalArgumentException("Keyword not declared by any rule: " + keyword);
+        }
+        return id;
+    }
+}
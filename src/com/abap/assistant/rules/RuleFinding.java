@@ -0,0 +1,39 @@
+package com.abap.assistant.rules;
+
+/**
+ * Result of one rule firing on a source text
+ * Lines are 1-based and inclusive; 0 when the rule judges the file as a whole
+ */
+public final class RuleFinding {
+
+    private final AbapRule rule;
+    private final String message;
+    private final int startLine;
+    private final int endLine;
+
+    public RuleFinding(AbapRule rule, String message, int startLine, int endLine) {
+        this.rule = rule;
+        this.message = message;
+        this.startLine = startLine;
+        this.endLine = endLine;
+    }
+
+    public AbapRule getRule() { return rule; }
+
+    public AbapRule.Category getCategory() { return rule.getCategory(); }
+
+    public String getMessage() { return message; }
+
+    public int getStartLine() { return startLine; }
+
+    public int getEndLine() { return endLine; }
+
+    public boolean hasLines() {
+        return startLine > 0;
+    }
+
+    @Override
+    public String toString() {
+        return rule.getId() + (hasLines() ? "@" + startLine + "-" + endLine : "") + ": " + message;
+    }
+}
@@ -2,10 +2,17 @@ package com.abap.assistant.services;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import com.abap.assistant.models.ChatMessage;
+import com.abap.assistant.parser.AbapBlock;
+import com.abap.assistant.parser.AbapStatement;
+import com.abap.assistant.parser.AbapSyntaxTree;
+import com.abap.assistant.parser.AbapToken;
+import com.abap.assistant.rules.AbapRule;
+import com.abap.assistant.rules.AbapRule.Category;
+import com.abap.assistant.rules.AbapRuleEngine;
+import com.abap.assistant.rules.RuleContext;
+import com.abap.assistant.rules.RuleFinding;
 import com.abap.assistant.utils.EditorUtils;
 
 /**
@@ -14,6 +21,9 @@ import com.abap.assistant.utils.EditorUtils;
  */
 public class ABAPIntelligenceService {
     
+    // Rules are stateless; sharing the engine accumulates timings across analyses
+    private static final AbapRuleEngine RULE_ENGINE = createRuleEngine();
+    
     private ChatGPTService chatService;
     
     public ABAPIntelligenceService() {
@@ -24,162 +34,173 @@ public class ABAPIntelligenceService {
      * Perform comprehensive code analysis
      */
     public CodeAnalysisResult analyzeCode(String abapCode) {
+        return analyzeCode(abapCode, true);
+    }
+    
+    /**
+     * Perform code analysis, optionally without the AI suggestions round trip
+     */
+    public CodeAnalysisResult analyzeCode(String abapCode, boolean includeAISuggestions) {
         CodeAnalysisResult result = new CodeAnalysisResult();
         
-        // 1. Detect SAP patterns and frameworks
-        result.detectedPatterns = detectSAPPatterns(abapCode);
-        
-        // 2. Analyze performance issues
-        result.performanceIssues = analyzePerformance(abapCode);
-        
-        // 3. Check for modernization opportunities
-        result.modernizationSuggestions = checkModernization(abapCode);
-        
-        // 4. Detect architectural issues
-        result.architectureIssues = checkArchitecture(abapCode);
+        // 1-4. Patterns, performance, modernization and architecture in a single pass
+        AbapRuleEngine.Result rules = RULE_ENGINE.evaluate(abapCode);
+        result.detectedPatterns = rules.getMessages(Category.PATTERN);
+        result.performanceIssues = rules.getMessages(Category.PERFORMANCE);
+        result.modernizationSuggestions = rules.getMessages(Category.MODERNIZATION);
+        result.architectureIssues = rules.getMessages(Category.ARCHITECTURE);
+        result.findings = rules.getFindings();
         
         // 5. Generate intelligent suggestions
-        result.intelligentSuggestions = generateIntelligentSuggestions(abapCode, result);
+        if (includeAISuggestions) {
+            result.intelligentSuggestions = generateIntelligentSuggestions(abapCode, result);
+        }
         
         return result;
     }
     
     /**
-     * Detect SAP-specific patterns and frameworks
+     * Static checks, grouped by report section - all evaluated in one pass by the rule engine
+     * Keyword rules keep the case-insensitive substring semantics of the original checks
      */
-    private List<String> detectSAPPatterns(String code) {
-        List<String> patterns = new ArrayList<>();
-        
-        if (code.toUpperCase().contains("CL_SALV_")) {
-            patterns.add("ALV Grid Display Pattern detected - Modern SAP List display");
-        }
-        
-        if (code.toUpperCase().contains("CALL FUNCTION") && code.toUpperCase().contains("BAPI_")) {
-            patterns.add("BAPI Usage Pattern detected - Business API integration");
-        }
-        
-        if (code.toUpperCase().contains("CALL SCREEN")) {
-            patterns.add("Screen Programming Pattern - Consider modern UI5 alternatives");
-        }
-        
-        if (code.toUpperCase().contains("WRITE:") || code.toUpperCase().contains("WRITE ")) {
-            patterns.add("Classical Report Pattern - Consider ALV for better presentation");
-        }
-        
-        if (code.toUpperCase().contains("SELECT SINGLE") || code.toUpperCase().contains("SELECT *")) {
-            patterns.add("Database Access Pattern detected - Performance review recommended");
-        }
-        
-        if (code.toUpperCase().contains("SMARTFORMS") || code.toUpperCase().contains("SSF_")) {
-            patterns.add("Smart Forms Pattern - Document generation framework");
-        }
-        
-        if (code.toUpperCase().contains("ENHANCEMENT")) {
-            patterns.add("Enhancement Framework Usage - Good extensibility practice");
-        }
-        
-        return patterns;
+    private static AbapRuleEngine createRuleEngine() {
+        List<AbapRule> rules = new ArrayList<>();
+        
+        // SAP-specific patterns and frameworks
+        rules.add(AbapRule.keywords("alv", Category.PATTERN,
+            "ALV Grid Display Pattern detected - Modern SAP List display",
+            c -> c.has("CL_SALV_"), "CL_SALV_"));
+        rules.add(AbapRule.keywords("bapi", Category.PATTERN,
+            "BAPI Usage Pattern detected - Business API integration",
+            c -> c.has("CALL FUNCTION") && c.has("BAPI_"), "CALL FUNCTION", "BAPI_"));
+        rules.add(AbapRule.keywords("call-screen", Category.PATTERN,
+            "Screen Programming Pattern - Consider modern UI5 alternatives",
+            c -> c.has("CALL SCREEN"), "CALL SCREEN"));
+        rules.add(AbapRule.keywords("classical-report", Category.PATTERN,
+            "Classical Report Pattern - Consider ALV for better presentation",
+            c -> c.has("WRITE:") || c.has("WRITE "), "WRITE:", "WRITE "));
+        rules.add(AbapRule.keywords("database-access", Category.PATTERN,
+            "Database Access Pattern detected - Performance review recommended",
+            c -> c.has("SELECT SINGLE") || c.has("SELECT *"), "SELECT SINGLE", "SELECT *"));
+        rules.add(AbapRule.keywords("smart-forms", Category.PATTERN,
+            "Smart Forms Pattern - Document generation framework",
+            c -> c.has("SMARTFORMS") || c.has("SSF_"), "SMARTFORMS", "SSF_"));
+        rules.add(AbapRule.keywords("enhancement", Category.PATTERN,
+            "Enhancement Framework Usage - Good extensibility practice",
+            c -> c.has("ENHANCEMENT"), "ENHANCEMENT"));
+        
+        // Performance
+        rules.add(AbapRule.located("nested-select", Category.PERFORMANCE,
+            "🔴 CRITICAL: Nested SELECT statements detected - Use JOIN instead",
+            ABAPIntelligenceService::detectNestedSelects));
+        rules.add(AbapRule.keywords("select-star", Category.PERFORMANCE,
+            "⚠️ WARNING: SELECT * usage - Specify required fields only",
+            c -> c.has("SELECT *"), "SELECT *"));
+        rules.add(AbapRule.located("select-in-loop", Category.PERFORMANCE,
+            "🔴 CRITICAL: Database access inside loop - Use FOR ALL ENTRIES",
+            ABAPIntelligenceService::detectSelectsInLoops));
+        rules.add(AbapRule.located("select-without-where", Category.PERFORMANCE,
+            "⚠️ WARNING: SELECT without WHERE clause - Performance risk",
+            ABAPIntelligenceService::detectSelectsWithoutWhere));
+        rules.add(AbapRule.keywords("sort-in-loop", Category.PERFORMANCE,
+            "🔴 PERFORMANCE: SORT inside loop - Sort before loop",
+            c -> c.has("LOOP") && c.has("SORT"), "LOOP", "SORT"));
+        
+        // Modernization
+        rules.add(AbapRule.keywords("loop-without-into", Category.MODERNIZATION,
+            "✨ MODERNIZE: Use 'LOOP AT table INTO wa' instead of field-symbols",
+            c -> c.has("LOOP AT") && !c.has("INTO"), "LOOP AT", "INTO"));
+        rules.add(AbapRule.keywords("eq-operator", Category.MODERNIZATION,
+            "✨ MODERNIZE: Use '=' instead of 'EQ' for better readability",
+            c -> c.has("IF") && c.has("EQ"), "IF", "EQ"));
+        rules.add(AbapRule.keywords("concatenate", Category.MODERNIZATION,
+            "✨ MODERNIZE: Use string templates |{ }| instead of CONCATENATE",
+            c -> c.has("CONCATENATE"), "CONCATENATE"));
+        rules.add(AbapRule.keywords("type-i", Category.MODERNIZATION,
+            "✨ MODERNIZE: Consider using specific integer types (INT1, INT2, INT4)",
+            c -> c.has("DATA:") && c.has("TYPE I"), "DATA:", "TYPE I"));
+        rules.add(AbapRule.keywords("read-without-binary-search", Category.MODERNIZATION,
+            "✨ OPTIMIZE: Add BINARY SEARCH to READ operations on sorted tables",
+            c -> c.has("READ TABLE") && !c.has("BINARY SEARCH"), "READ TABLE", "BINARY SEARCH"));
+        
+        // Architecture
+        rules.add(AbapRule.keywords("mixed-concerns", Category.ARCHITECTURE,
+            "🏗️ ARCHITECTURE: Mixed concerns detected - Consider separating UI, Logic, and Data layers",
+            c -> (c.has("WRITE") || c.has("MESSAGE")) && (c.has("SELECT") || c.has("INSERT"))
+                && (c.has("LOOP") || c.has("IF")),
+            "WRITE", "MESSAGE", "SELECT", "INSERT", "LOOP", "IF"));
+        rules.add(AbapRule.tokens("hard-coded-values", Category.ARCHITECTURE,
+            "🏗️ ARCHITECTURE: Hard-coded values detected - Use constants or customizing",
+            ABAPIntelligenceService::hasHardCodedValue));
+        rules.add(AbapRule.keywords("missing-sy-subrc", Category.ARCHITECTURE,
+            "🏗️ ARCHITECTURE: Missing error handling after database operations",
+            c -> c.has("SELECT") && !c.has("SY-SUBRC"), "SELECT", "SY-SUBRC"));
+        
+        return new AbapRuleEngine(rules);
     }
     
     /**
-     * Analyze performance-related issues
+     * SELECT statements executed inside an open SELECT ... ENDSELECT loop
+     * Subqueries are part of their outer statement and do not count
      */
-    private List<String> analyzePerformance(String code) {
-        List<String> issues = new ArrayList<>();
-        
-        // Check for nested SELECTs
-        Pattern nestedSelectPattern = Pattern.compile("SELECT.*SELECT", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
-        if (nestedSelectPattern.matcher(code).find()) {
-            issues.add("🔴 CRITICAL: Nested SELECT statements detected - Use JOIN instead");
-        }
-        
-        // Check for SELECT * usage
-        if (code.toUpperCase().contains("SELECT *")) {
-            issues.add("⚠️ WARNING: SELECT * usage - Specify required fields only");
-        }
-        
-        // Check for loops with database access
-        Pattern loopSelectPattern = Pattern.compile("LOOP.*SELECT", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
-        if (loopSelectPattern.matcher(code).find()) {
-            issues.add("🔴 CRITICAL: Database access inside loop - Use FOR ALL ENTRIES");
-        }
-        
-        // Check for missing WHERE clause
-        Pattern selectPattern = Pattern.compile("SELECT\\s+[^WHERE]*FROM\\s+\\w+(?!.*WHERE)", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
-        if (selectPattern.matcher(code).find()) {
-            issues.add("⚠️ WARNING: SELECT without WHERE clause - Performance risk");
-        }
-        
-        // Check for SORT inside loop
-        if (code.toUpperCase().contains("LOOP") && code.toUpperCase().contains("SORT")) {
-            issues.add("🔴 PERFORMANCE: SORT inside loop - Sort before loop");
-        }
-        
-        return issues;
+    private static void detectNestedSelects(RuleContext context, AbapRule.Collector matches) {
+        detectSelectsInside(context, AbapBlock.Type.SELECT_LOOP, matches);
     }
     
     /**
-     * Check for modernization opportunities
+     * SELECT statements between LOOP and its ENDLOOP, at any nesting depth
      */
-    private List<String> checkModernization(String code) {
-        List<String> suggestions = new ArrayList<>();
-        
-        // Old-style LOOP syntax
-        if (code.toUpperCase().contains("LOOP AT") && !code.toUpperCase().contains("INTO")) {
-            suggestions.add("✨ MODERNIZE: Use 'LOOP AT table INTO wa' instead of field-symbols");
-        }
-        
-        // Old IF-ELSE syntax
-        if (code.toUpperCase().contains("IF") && code.toUpperCase().contains("EQ")) {
-            suggestions.add("✨ MODERNIZE: Use '=' instead of 'EQ' for better readability");
-        }
-        
-        // String operations
-        if (code.toUpperCase().contains("CONCATENATE")) {
-            suggestions.add("✨ MODERNIZE: Use string templates |{ }| instead of CONCATENATE");
-        }
-        
-        // Old data declaration
-        if (code.toUpperCase().contains("DATA:") && code.toUpperCase().contains("TYPE I")) {
-            suggestions.add("✨ MODERNIZE: Consider using specific integer types (INT1, INT2, INT4)");
+    private static void detectSelectsInLoops(RuleContext context, AbapRule.Collector matches) {
+        detectSelectsInside(context, AbapBlock.Type.LOOP, matches);
+    }
+    
+    private static void detectSelectsInside(RuleContext context, AbapBlock.Type loopType, AbapRule.Collector matches) {
+        AbapSyntaxTree tree = context.getTree();
+        List<AbapStatement> statements = tree.getStatements();
+        for (int i = 0; i < statements.size(); i++) {
+            AbapStatement statement = statements.get(i);
+            if (!statement.startsWith("SELECT")) {
+                continue;
+            }
+            // A SELECT loop's own block starts at the statement; only enclosing blocks count
+            AbapBlock block = tree.getEnclosingBlock(i);
+            if (block.getFirstStatement() == i && block.getType() == AbapBlock.Type.SELECT_LOOP) {
+                block = block.getParent();
+            }
+            if (block.findEnclosing(loopType) != null) {
+                matches.add(statement.getStartLine(), statement.getEndLine());
+            }
         }
-        
-        // Internal table operations
-        if (code.toUpperCase().contains("READ TABLE") && !code.toUpperCase().contains("BINARY SEARCH")) {
-            suggestions.add("✨ OPTIMIZE: Add BINARY SEARCH to READ operations on sorted tables");
+    }
+    
+    private static void detectSelectsWithoutWhere(RuleContext context, AbapRule.Collector matches) {
+        for (AbapStatement statement : context.getStatements()) {
+            if (statement.startsWith("SELECT") && statement.containsWord("FROM") && !statement.containsWord("WHERE")) {
+                matches.add(statement.getStartLine(), statement.getEndLine());
+            }
         }
-        
-        return suggestions;
     }
     
     /**
-     * Check architectural best practices
+     * A '...' literal made only of two or more letters and digits, e.g. 'X1' or 'EUR'
      */
-    private List<String> checkArchitecture(String code) {
-        List<String> issues = new ArrayList<>();
-        
-        // Mixed concerns (UI + Logic + Data)
-        boolean hasUICode = code.toUpperCase().contains("WRITE") || code.toUpperCase().contains("MESSAGE");
-        boolean hasDBCode = code.toUpperCase().contains("SELECT") || code.toUpperCase().contains("INSERT");
-        boolean hasLogicCode = code.toUpperCase().contains("LOOP") || code.toUpperCase().contains("IF");
-        
-        if (hasUICode && hasDBCode && hasLogicCode) {
-            issues.add("🏗️ ARCHITECTURE: Mixed concerns detected - Consider separating UI, Logic, and Data layers");
-        }
-        
-        // Hard-coded values
-        Pattern hardcodedPattern = Pattern.compile("'[A-Z0-9]{2,}'", Pattern.CASE_INSENSITIVE);
-        Matcher matcher = hardcodedPattern.matcher(code);
-        if (matcher.find()) {
-            issues.add("🏗️ ARCHITECTURE: Hard-coded values detected - Use constants or customizing");
-        }
-        
-        // Missing error handling
-        if (code.toUpperCase().contains("SELECT") && !code.toUpperCase().contains("SY-SUBRC")) {
-            issues.add("🏗️ ARCHITECTURE: Missing error handling after database operations");
+    private static boolean hasHardCodedValue(RuleContext context) {
+        for (AbapToken token : context.getTokens()) {
+            String text = token.getText();
+            if (!token.is(AbapToken.Type.STRING_LITERAL) || text.length() < 4
+                    || text.charAt(0) != '\'' || text.charAt(text.length() - 1) != '\'') {
+                continue;
+            }
+            boolean alphanumeric = true;
+            for (int i = 1; i < text.length() - 1 && alphanumeric; i++) {
+                char c = text.charAt(i);
+                alphanumeric = (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9');
+            }
+            if (alphanumeric) {
+                return true;
+            }
         }
-        
-        return issues;
+        return false;
     }
     
     /**
@@ -236,6 +257,7 @@ public class ABAPIntelligenceService {
         public List<String> modernizationSuggestions = new ArrayList<>();
         public List<String> architectureIssues = new ArrayList<>();
         public String intelligentSuggestions = "";
+        public List<RuleFinding> findings = new ArrayList<>();
         
         public String getSummaryReport() {
             StringBuilder report = new StringBuilder();
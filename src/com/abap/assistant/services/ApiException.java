@@ -0,0 +1,30 @@
+package com.abap.assistant.services;
+
+/**
+ * Non-200 response from the OpenAI API
+ * Carries the status code and the server's wait hint so the retry policy can act on them
+ */
+public class ApiException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int statusCode;
+    private final long retryAfterMillis;
+
+    /**
+     * @param retryAfterMillis Wait requested by the server, or -1 when none was sent
+     */
+    public ApiException(int statusCode, String responseBody, long retryAfterMillis) {
+        super("API Error: " + statusCode + " - " + responseBody);
+        this.statusCode = statusCode;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
@@ -32,12 +32,8 @@ public class AutoCodeModificationService {
      */
     public boolean performAutoFix(String originalCode, boolean showDiffPreview) {
         try {
-            // Create specific prompt for auto-fix
-            String prompt = createAutoFixPrompt(originalCode);
-            
-            // Get AI response
-            ChatMessage response = chatService.sendMessage(prompt);
-            String fixedCode = extractCodeFromResponse(response.getContent());
+            // Get fixed code from AI
+            String fixedCode = generateFixedCode(originalCode);
             
             if (fixedCode != null && !fixedCode.trim().isEmpty()) {
                 
@@ -77,12 +73,8 @@ public class AutoCodeModificationService {
      */
     public boolean performAutoOptimize(String originalCode, boolean showDiffPreview) {
         try {
-            // Create specific prompt for optimization
-            String prompt = createOptimizePrompt(originalCode);
-            
-            // Get AI response
-            ChatMessage response = chatService.sendMessage(prompt);
-            String optimizedCode = extractCodeFromResponse(response.getContent());
+            // Get optimized code from AI
+            String optimizedCode = generateOptimizedCode(originalCode);
             
             if (optimizedCode != null && !optimizedCode.trim().isEmpty()) {
                 
@@ -206,6 +198,24 @@ public class AutoCodeModificationService {
         }
     }
     
+    /**
+     * Ask the AI for corrected code without touching the editor
+     * @return Extracted ABAP code, or null if the response contains none
+     */
+    public String generateFixedCode(String originalCode) throws Exception {
+        ChatMessage response = chatService.sendMessage(createAutoFixPrompt(originalCode));
+        return extractCodeFromResponse(response.getContent());
+    }
+    
+    /**
+     * Ask the AI for optimized code without touching the editor
+     * @return Extracted ABAP code, or null if the response contains none
+     */
+    public String generateOptimizedCode(String originalCode) throws Exception {
+        ChatMessage response = chatService.sendMessage(createOptimizePrompt(originalCode));
+        return extractCodeFromResponse(response.getContent());
+    }
+    
     private String createAutoFixPrompt(String code) {
         return String.format(
             "You are an ABAP programming expert. Analyze the following ABAP code and fix any errors, bugs, or issues. " +
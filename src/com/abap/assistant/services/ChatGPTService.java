@@ -1,15 +1,34 @@
 package com.abap.assistant.services;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
+import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
 import org.apache.http.util.EntityUtils;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
@@ -22,15 +41,33 @@ import com.abap.assistant.utils.ConfigurationManager;
  */
 public class ChatGPTService {
     
-    private static final String OPENAI_API_URL = "https://api.openai.com/v1/chat/completions";
     private static final String DEFAULT_MODEL = "gpt-3.5-turbo";
+    private static final String SSE_DATA_PREFIX = "data:";
+    private static final String SSE_DONE = "[DONE]";
+    
+    private static final int TOKENS_PER_MESSAGE = 4; // role + message framing overhead
+    
+    private static final int MAX_QUEUED_REQUESTS = 32;
+    private static final long MONITOR_POLL_MILLIS = 100;
     
     private List<ChatMessage> conversationHistory;
     private ConfigurationManager config;
+    private HttpClientPool httpPool;
+    private ResponseCache responseCache;
+    private RequestRateLimiter rateLimiter;
+    private final AtomicLong retryCount = new AtomicLong();
+    
+    // Prompt size of the last request (after history trimming)
+    private int lastPromptTokens;
+    private int lastPromptMessages;
+    private int evictedMessageCount;
     
     public ChatGPTService() {
         this.conversationHistory = new ArrayList<>();
         this.config = ConfigurationManager.getInstance();
+        this.httpPool = HttpClientPool.getShared();
+        this.responseCache = ResponseCache.getInstance();
+        this.rateLimiter = RequestRateLimiter.getShared();
         
         // Add system message for ABAP context
         ChatMessage systemMessage = new ChatMessage("system", 
@@ -44,40 +81,282 @@ public class ChatGPTService {
      * Send message to ChatGPT and return response
      */
     public ChatMessage sendMessage(String userMessage) throws Exception {
-        String apiKey = config.getApiKey();
-        if (apiKey == null || apiKey.trim().isEmpty()) {
-            throw new IllegalStateException("OpenAI API key not configured. Please set it in preferences.");
+        return executeChat(userMessage, null, false, new InFlightRequest());
+    }
+    
+    /**
+     * Send message with a streamed (SSE) response
+     * Each content delta is passed to the listener as it arrives; the assembled reply is returned and kept in history
+     */
+    public ChatMessage sendMessageStreaming(String userMessage, Consumer<String> deltaListener) throws Exception {
+        return executeChat(userMessage, deltaListener, true, new InFlightRequest());
+    }
+    
+    /**
+     * Send message asynchronously on the bounded request executor
+     */
+    public CompletableFuture<ChatMessage> sendMessageAsync(String userMessage) {
+        return sendMessageAsync(userMessage, null);
+    }
+    
+    /**
+     * Send message asynchronously; cancelling the monitor (or the future) aborts the in-flight HTTP request
+     */
+    public CompletableFuture<ChatMessage> sendMessageAsync(String userMessage, IProgressMonitor monitor) {
+        return submitAsync(handle -> executeChat(userMessage, null, false, handle), monitor);
+    }
+    
+    /**
+     * Send message asynchronously with a streamed response
+     */
+    public CompletableFuture<ChatMessage> sendMessageStreamingAsync(String userMessage, Consumer<String> deltaListener,
+            IProgressMonitor monitor) {
+        return submitAsync(handle -> executeChat(userMessage, deltaListener, true, handle), monitor);
+    }
+    
+    private CompletableFuture<ChatMessage> submitAsync(ChatCall call, IProgressMonitor monitor) {
+        InFlightRequest handle = new InFlightRequest();
+        CompletableFuture<ChatMessage> future;
+        try {
+            future = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return call.execute(handle);
+                } catch (CancellationException | CompletionException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, getRequestExecutor());
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(
+                new IllegalStateException("Too many AI requests in progress, please retry shortly", e));
         }
         
-        // Add user message to history
-        ChatMessage userMsg = new ChatMessage("user", userMessage);
-        conversationHistory.add(userMsg);
+        // Cancelling the future aborts the HTTP request and frees its pooled connection
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                handle.cancel();
+            }
+        });
         
-        // Prepare API request
-        JSONObject requestBody = createRequestBody();
+        if (monitor != null) {
+            watchMonitor(monitor, future);
+        }
+        return future;
+    }
+    
+    /**
+     * Poll the progress monitor and cancel the future once the user cancels the job
+     */
+    private static void watchMonitor(IProgressMonitor monitor, CompletableFuture<ChatMessage> future) {
+        ScheduledFuture<?>[] poller = new ScheduledFuture<?>[1];
+        poller[0] = getMonitorWatcher().scheduleWithFixedDelay(() -> {
+            if (future.isDone()) {
+                poller[0].cancel(false);
+            } else if (monitor.isCanceled()) {
+                future.cancel(true);
+                poller[0].cancel(false);
+            }
+        }, MONITOR_POLL_MILLIS, MONITOR_POLL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Common request path for buffered and streaming calls
+     * Requests on the same service instance are serialized to keep the conversation ordered
+     */
+    private ChatMessage executeChat(String userMessage, Consumer<String> deltaListener, boolean stream,
+            InFlightRequest handle) throws Exception {
+        String apiKey = requireApiKey();
         
-        try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
-            HttpPost request = new HttpPost(OPENAI_API_URL);
-            request.setHeader("Authorization", "Bearer " + apiKey);
-            request.setHeader("Content-Type", "application/json");
-            request.setEntity(new StringEntity(requestBody.toString()));
+        synchronized (conversationHistory) {
+            // Add user message to history
+            ChatMessage userMsg = new ChatMessage("user", userMessage);
+            conversationHistory.add(userMsg);
             
-            try (CloseableHttpResponse response = httpClient.execute(request)) {
-                String responseBody = EntityUtils.toString(response.getEntity());
+            // Prepare API request
+            JSONObject requestBody = createRequestBody(stream);
+            
+            // Deterministic prompts are answered from the response cache
+            String cacheKey = getCacheKey(requestBody);
+            if (cacheKey != null) {
+                String cachedReply = responseCache.get(cacheKey);
+                if (cachedReply != null) {
+                    // A cached reply is delivered to streaming listeners as a single delta
+                    if (deltaListener != null) {
+                        deltaListener.accept(cachedReply);
+                    }
+                    return addAssistantMessage(cachedReply);
+                }
+            }
+            
+            try {
+                String assistantReply = executeWithRetry(apiKey, requestBody, deltaListener, stream, handle);
                 
-                if (response.getStatusLine().getStatusCode() == 200) {
-                    JSONObject jsonResponse = new JSONObject(responseBody);
-                    String assistantReply = extractAssistantReply(jsonResponse);
-                    
-                    ChatMessage assistantMessage = new ChatMessage("assistant", assistantReply);
-                    conversationHistory.add(assistantMessage);
-                    
-                    return assistantMessage;
-                } else {
-                    throw new RuntimeException("API Error: " + response.getStatusLine().getStatusCode() + " - " + responseBody);
+                if (cacheKey != null) {
+                    responseCache.put(cacheKey, assistantReply);
+                }
+                return addAssistantMessage(assistantReply);
+            } catch (Exception e) {
+                if (handle.isCancelled()) {
+                    // Aborted by the user - the unanswered question is dropped from the conversation
+                    conversationHistory.remove(userMsg);
+                    throw new CancellationException("AI request cancelled");
                 }
+                throw e;
+            }
+        }
+    }
+    
+    /**
+     * Send the request through the shared rate limiter, retrying transient failures
+     * A streamed call is never retried once content has reached the listener
+     */
+    private String executeWithRetry(String apiKey, JSONObject requestBody, Consumer<String> deltaListener,
+            boolean stream, InFlightRequest handle) throws Exception {
+        RetryPolicy retryPolicy = RetryPolicy.fromConfig(config);
+        boolean[] delivered = new boolean[1];
+        Consumer<String> trackingListener = delta -> {
+            delivered[0] = true;
+            if (deltaListener != null) {
+                deltaListener.accept(delta);
             }
+        };
+        
+        for (int attempt = 1; ; attempt++) {
+            rateLimiter.acquire(handle::sleep);
+            
+            // An aborted HttpPost cannot be reused - every attempt gets a fresh one
+            HttpPost request = createHttpRequest(apiKey, requestBody);
+            if (stream) {
+                request.setHeader("Accept", "text/event-stream");
+            }
+            handle.attach(request);
+            
+            try {
+                return stream ? executeStreaming(request, trackingListener) : executeBuffered(request);
+            } catch (Exception e) {
+                long delay = handle.isCancelled() || delivered[0] ? -1 : retryPolicy.getRetryDelayMillis(attempt, e);
+                if (delay < 0) {
+                    throw e;
+                }
+                if (e instanceof ApiException && ((ApiException) e).getStatusCode() == 429) {
+                    // Other requests would hit the same exhausted window
+                    rateLimiter.pauseFor(delay);
+                }
+                retryCount.incrementAndGet();
+                System.err.println("OpenAI request failed (attempt " + attempt + "/" + retryPolicy.getMaxAttempts()
+                    + "), retrying in " + delay + " ms: " + e.getMessage());
+                handle.sleep(delay);
+            }
+        }
+    }
+    
+    private String executeBuffered(HttpPost request) throws IOException {
+        try (CloseableHttpResponse response = httpPool.getClient().execute(request)) {
+            // Consuming the entity fully releases the connection back to the pool
+            String responseBody = EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+            
+            if (response.getStatusLine().getStatusCode() == 200) {
+                observeRateLimit(response);
+                JSONObject jsonResponse = new JSONObject(responseBody);
+                return extractAssistantReply(jsonResponse);
+            } else {
+                throw createApiException(response, responseBody);
+            }
+        }
+    }
+    
+    private String executeStreaming(HttpPost request, Consumer<String> deltaListener) throws IOException {
+        try (CloseableHttpResponse response = httpPool.getClient().execute(request)) {
+            if (response.getStatusLine().getStatusCode() != 200) {
+                String responseBody = EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+                throw createApiException(response, responseBody);
+            }
+            
+            observeRateLimit(response);
+            return readEventStream(response.getEntity().getContent(), deltaListener);
+        }
+    }
+    
+    private ApiException createApiException(HttpResponse response, String responseBody) {
+        return new ApiException(response.getStatusLine().getStatusCode(), responseBody,
+            RetryPolicy.parseRetryAfterMillis(response));
+    }
+    
+    /**
+     * Pause the shared limiter when a successful response reports an exhausted window
+     */
+    private void observeRateLimit(HttpResponse response) {
+        rateLimiter.pauseFor(RetryPolicy.getRateLimitResetMillis(response));
+    }
+    
+    /**
+     * Parse server-sent events until [DONE], forwarding every content delta
+     */
+    private String readEventStream(InputStream stream, Consumer<String> deltaListener) throws IOException {
+        StringBuilder reply = new StringBuilder();
+        
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // Blank lines separate events; other SSE fields (event:, id:, comments) are not used by the API
+                if (!line.startsWith(SSE_DATA_PREFIX)) {
+                    continue;
+                }
+                
+                String data = line.substring(SSE_DATA_PREFIX.length()).trim();
+                if (SSE_DONE.equals(data)) {
+                    break;
+                }
+                if (data.isEmpty()) {
+                    continue;
+                }
+                
+                String delta = extractStreamDelta(new JSONObject(data));
+                if (delta != null && !delta.isEmpty()) {
+                    reply.append(delta);
+                    if (deltaListener != null) {
+                        deltaListener.accept(delta);
+                    }
+                }
+            }
+        }
+        
+        return reply.toString();
+    }
+    
+    private ChatMessage addAssistantMessage(String reply) {
+        ChatMessage assistantMessage = new ChatMessage("assistant", reply);
+        conversationHistory.add(assistantMessage);
+        return assistantMessage;
+    }
+    
+    /**
+     * Cache key for the request, or null when the response is not cacheable
+     */
+    private String getCacheKey(JSONObject requestBody) {
+        if (!responseCache.isApplicable(config.getTemperature())) {
+            return null;
+        }
+        return ResponseCache.computeKey(requestBody);
+    }
+    
+    private String requireApiKey() {
+        String apiKey = config.getApiKey();
+        if (apiKey == null || apiKey.trim().isEmpty()) {
+            throw new IllegalStateException("OpenAI API key not configured. Please set it in preferences.");
         }
+        return apiKey;
+    }
+    
+    private HttpPost createHttpRequest(String apiKey, JSONObject requestBody) {
+        // Reuse the plugin-wide pooled client - keep-alive avoids a TCP+TLS handshake per request
+        HttpPost request = new HttpPost(config.getApiUrl());
+        request.setConfig(httpPool.createRequestConfig());
+        request.setHeader("Authorization", "Bearer " + apiKey);
+        request.setHeader("Content-Type", "application/json");
+        request.setEntity(new StringEntity(requestBody.toString(), StandardCharsets.UTF_8));
+        return request;
     }
     
     /**
@@ -122,11 +401,16 @@ public class ChatGPTService {
         return response.getContent();
     }
     
-    private JSONObject createRequestBody() {
+    private JSONObject createRequestBody(boolean stream) {
         JSONObject request = new JSONObject();
         request.put("model", config.getModel() != null ? config.getModel() : DEFAULT_MODEL);
         request.put("max_tokens", config.getMaxTokens());
         request.put("temperature", config.getTemperature());
+        if (stream) {
+            request.put("stream", true);
+        }
+        
+        trimHistoryToBudget();
         
         JSONArray messages = new JSONArray();
         for (ChatMessage msg : conversationHistory) {
@@ -140,6 +424,37 @@ public class ChatGPTService {
         return request;
     }
     
+    /**
+     * Evict the oldest turns so the prompt stays within the configured token budget
+     * The system message and the current user message are always kept
+     */
+    private void trimHistoryToBudget() {
+        int budget = config.getHistoryTokenBudget();
+        int totalTokens = 0;
+        for (ChatMessage msg : conversationHistory) {
+            totalTokens += estimateTokens(msg);
+        }
+        
+        // Index 0 is the system message, the last entry is the message being sent
+        while (totalTokens > budget && conversationHistory.size() > 2) {
+            totalTokens -= estimateTokens(conversationHistory.remove(1));
+            evictedMessageCount++;
+            
+            // Drop the answer together with its question so the window never starts mid-turn
+            if (conversationHistory.size() > 2 && "assistant".equals(conversationHistory.get(1).getRole())) {
+                totalTokens -= estimateTokens(conversationHistory.remove(1));
+                evictedMessageCount++;
+            }
+        }
+        
+        lastPromptTokens = totalTokens;
+        lastPromptMessages = conversationHistory.size();
+    }
+    
+    private static int estimateTokens(ChatMessage message) {
+        return message.getTokenCount() + TOKENS_PER_MESSAGE;
+    }
+    
     private String extractAssistantReply(JSONObject response) {
         JSONArray choices = response.getJSONArray("choices");
         if (choices.length() > 0) {
@@ -150,20 +465,86 @@ public class ChatGPTService {
         throw new RuntimeException("No response content found");
     }
     
+    private String extractStreamDelta(JSONObject chunk) {
+        JSONArray choices = chunk.optJSONArray("choices");
+        if (choices == null || choices.length() == 0) {
+            return null;
+        }
+        JSONObject delta = choices.getJSONObject(0).optJSONObject("delta");
+        if (delta == null || delta.isNull("content")) {
+            return null;
+        }
+        return delta.optString("content", null);
+    }
+    
     /**
      * Clear conversation history (keep system message)
      */
     public void clearHistory() {
-        ChatMessage systemMessage = conversationHistory.get(0);
-        conversationHistory.clear();
-        conversationHistory.add(systemMessage);
+        synchronized (conversationHistory) {
+            ChatMessage systemMessage = conversationHistory.get(0);
+            conversationHistory.clear();
+            conversationHistory.add(systemMessage);
+        }
     }
     
     /**
      * Get conversation history
      */
     public List<ChatMessage> getHistory() {
-        return new ArrayList<>(conversationHistory);
+        synchronized (conversationHistory) {
+            return new ArrayList<>(conversationHistory);
+        }
+    }
+    
+    /**
+     * Get estimated prompt size (tokens) of the last request
+     */
+    public int getLastPromptTokens() {
+        return lastPromptTokens;
+    }
+    
+    /**
+     * Get number of messages sent with the last request
+     */
+    public int getLastPromptMessageCount() {
+        return lastPromptMessages;
+    }
+    
+    /**
+     * Get number of history messages evicted to respect the token budget
+     */
+    public int getEvictedMessageCount() {
+        return evictedMessageCount;
+    }
+    
+    /**
+     * Get prompt size summary of the last request
+     */
+    public String getPromptStats() {
+        return String.format("prompt ~%d tokens, %d messages", lastPromptTokens, lastPromptMessages);
+    }
+    
+    /**
+     * Get response cache hit/miss counters
+     */
+    public String getCacheStats() {
+        return responseCache.getStatsSummary();
+    }
+    
+    /**
+     * Get connection pool statistics (requests, connections opened, reuse rate)
+     */
+    public String getConnectionStats() {
+        return httpPool.getStatsSummary() + "\n" + rateLimiter.getStatsSummary()
+            + ", " + retryCount.get() + " retries";
+    }
+    
+    /**
+     * Get number of retried API calls of this service
+     */
+    public long getRetryCount() {
+        return retryCount.get();
     }
     
     /**
@@ -262,7 +643,7 @@ public class ChatGPTService {
     /**
      * Get singleton instance
      */
-    public static ChatGPTService getInstance() {
+    public static synchronized ChatGPTService getInstance() {
         if (instance == null) {
             instance = new ChatGPTService();
         }
@@ -270,4 +651,102 @@ public class ChatGPTService {
     }
     
     private static ChatGPTService instance;
+    
+    /**
+     * Bounded executor shared by all async requests
+     */
+    private static synchronized ExecutorService getRequestExecutor() {
+        if (requestExecutor == null) {
+            int threads = Math.max(1, ConfigurationManager.getInstance().getMaxConcurrentRequests());
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(MAX_QUEUED_REQUESTS), daemonThreads("ABAP Assistant AI request"),
+                new ThreadPoolExecutor.AbortPolicy());
+            executor.allowCoreThreadTimeOut(true);
+            requestExecutor = executor;
+        }
+        return requestExecutor;
+    }
+    
+    private static synchronized ScheduledExecutorService getMonitorWatcher() {
+        if (monitorWatcher == null) {
+            monitorWatcher = Executors.newSingleThreadScheduledExecutor(daemonThreads("ABAP Assistant cancel watcher"));
+        }
+        return monitorWatcher;
+    }
+    
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + " #" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
+    /**
+     * Stop async executors - called when the plug-in stops
+     */
+    public static synchronized void shutdownExecutors() {
+        if (requestExecutor != null) {
+            requestExecutor.shutdownNow();
+            requestExecutor = null;
+        }
+        if (monitorWatcher != null) {
+            monitorWatcher.shutdownNow();
+            monitorWatcher = null;
+        }
+    }
+    
+    private static ExecutorService requestExecutor;
+    private static ScheduledExecutorService monitorWatcher;
+    
+    @FunctionalInterface
+    private interface ChatCall {
+        ChatMessage execute(InFlightRequest handle) throws Exception;
+    }
+    
+    /**
+     * Tracks the HTTP request of one call so it can be aborted from another thread
+     */
+    private static class InFlightRequest {
+        private volatile HttpPost request;
+        private volatile boolean cancelled;
+        
+        void attach(HttpPost request) {
+            this.request = request;
+            if (cancelled) {
+                request.abort();
+            }
+        }
+        
+        void cancel() {
+            cancelled = true;
+            HttpPost current = request;
+            if (current != null) {
+                current.abort();
+            }
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+        
+        boolean isCancelled() {
+            return cancelled;
+        }
+        
+        /**
+         * Wait between attempts - returns early with CancellationException once cancelled
+         */
+        synchronized void sleep(long millis) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + millis;
+            long remaining = millis;
+            while (!cancelled && remaining > 0) {
+                wait(remaining);
+                remaining = deadline - System.currentTimeMillis();
+            }
+            if (cancelled) {
+                throw new CancellationException("AI request cancelled");
+            }
+        }
+    }
 }
@@ -1,13 +1,20 @@
 package com.abap.assistant.services;
 
+import java.lang.management.ManagementFactory;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import org.eclipse.core.resources.*;
-import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.ui.IEditorPart;
 import org.eclipse.ui.texteditor.ITextEditor;
+import com.abap.assistant.parser.AbapBlock;
+import com.abap.assistant.parser.AbapParser;
+import com.abap.assistant.parser.AbapStatement;
+import com.abap.assistant.parser.AbapSyntaxTree;
+import com.abap.assistant.parser.AbapToken;
+import com.abap.assistant.utils.BoundedCache;
+import com.abap.assistant.utils.ConfigurationManager;
 import com.abap.assistant.utils.EditorUtils;
 import com.abap.assistant.models.CodeContext;
 import com.abap.assistant.models.VariableInfo;
@@ -20,30 +27,33 @@ import com.abap.assistant.models.DependencyInfo;
 public class CodeAnalysisService {
     
     private static CodeAnalysisService instance;
-    private Map<String, CodeContext> codeContextCache = new HashMap<>();
+    // Último análisis por ruta completa (por nombre si no hay archivo en el workspace), acotado por memoria
+    private final BoundedCache<String, CodeContext> codeContextCache;
+    private final ProjectCodeIndex projectIndex = new ProjectCodeIndex(this);
+    private volatile CodeContextStore contextStore; // Se abre con el primer archivo del workspace
     
-    // Patrones regex para ABAP
-    private static final Pattern VARIABLE_DECLARATION_PATTERN = Pattern.compile(
-        "(?i)(?:data|types|constants|field-symbols|parameters|select-options)\\s+([\\w-]+)(?:\\s+type\\s+([\\w\\(\\)\\s,-]+))?", 
-        Pattern.MULTILINE);
+    // Claves de metadatos con el coste del análisis
+    public static final String METADATA_TIME_MS = "analysisTimeMs";
+    public static final String METADATA_ALLOCATED_BYTES = "analysisAllocatedBytes";
+    public static final String METADATA_TOKENS = "analysisTokens";
     
-    private static final Pattern METHOD_CALL_PATTERN = Pattern.compile(
-        "(?i)(?:call\\s+method|call\\s+function|perform)\\s+([\\w-]+)", 
-        Pattern.MULTILINE);
+    // Palabras que abren una declaración y modificadores que cierran el tipo declarado
+    private static final Set<String> DECLARATION_KEYWORDS = new HashSet<>(Arrays.asList(
+        "DATA", "TYPES", "CONSTANTS", "FIELD-SYMBOLS", "PARAMETERS", "SELECT-OPTIONS", "STATICS", "CLASS-DATA"));
     
-    private static final Pattern CLASS_DEFINITION_PATTERN = Pattern.compile(
-        "(?i)class\\s+([\\w-]+)\\s+definition", 
-        Pattern.MULTILINE);
-    
-    private static final Pattern INCLUDE_PATTERN = Pattern.compile(
-        "(?i)include\\s+([\\w-]+)", 
-        Pattern.MULTILINE);
-    
-    private static final Pattern VARIABLE_USAGE_PATTERN = Pattern.compile(
-        "(?i)([\\w-]+)\\s*(?:=|into|from|to|\\+|\\-|\\*|\\/)", 
-        Pattern.MULTILINE);
+    private static final Set<String> TYPE_END_KEYWORDS = new HashSet<>(Arrays.asList(
+        "VALUE", "READ-ONLY", "DEFAULT", "OBLIGATORY", "LOWER", "MEMORY", "MATCHCODE", "NO-DISPLAY",
+        "MODIF", "AS", "RADIOBUTTON", "USER-COMMAND", "BOXED"));
 
-    public static CodeAnalysisService getInstance() {
+    public CodeAnalysisService() {
+        ConfigurationManager config = ConfigurationManager.getInstance();
+        this.codeContextCache = new BoundedCache<>(config.getCodeContextCacheMB() * 1024L * 1024L,
+            BoundedCache.EvictionPolicy.fromName(config.getCodeContextCachePolicy()),
+            CodeContext::estimateSizeBytes);
+    }
+
+    // Usado a la vez desde handlers de UI y Jobs en segundo plano
+    public static synchronized CodeAnalysisService getInstance() {
         if (instance == null) {
             instance = new CodeAnalysisService();
         }
@@ -61,10 +71,20 @@ public class CodeAnalysisService {
                 IDocument document = textEditor.getDocumentProvider()
                     .getDocument(textEditor.getEditorInput());
                 
-                String content = document.get();
-                String fileName = textEditor.getEditorInput().getName();
+                // El modelo vivo del editor ya está al día salvo las últimas ediciones
+                LiveCodeModel liveModel = LiveCodeModelManager.getInstance().getModel(document);
+                if (liveModel != null) {
+                    CodeContext context = liveModel.getContext();
+                    codeContextCache.put(context.getFilePath(), context);
+                    return context;
+                }
                 
-                return performDeepAnalysis(fileName, content);
+                String content = document.get();
+                IFile file = textEditor.getEditorInput().getAdapter(IFile.class);
+                if (file != null) {
+                    return performDeepAnalysis(file, content);
+                }
+                return performDeepAnalysis(textEditor.getEditorInput().getName(), content);
             }
         } catch (Exception e) {
             System.err.println("Error analyzing current editor content: " + e.getMessage());
@@ -73,44 +93,126 @@ public class CodeAnalysisService {
     }
 
     /**
-     * Analiza todo el proyecto para obtener contexto completo
+     * Contexto de todos los archivos ABAP de los proyectos abiertos, por ruta completa
+     * Solo se re-analizan los archivos modificados desde la última consulta
      */
     public Map<String, CodeContext> analyzeCompleteProject() {
-        Map<String, CodeContext> projectContext = new HashMap<>();
-        
+        return analyzeCompleteProject(new NullProgressMonitor());
+    }
+
+    /**
+     * Igual que {@link #analyzeCompleteProject()}, informando archivos/seg en el monitor
+     * Con muchos archivos pendientes la lectura y el análisis se hacen en paralelo
+     */
+    public Map<String, CodeContext> analyzeCompleteProject(IProgressMonitor monitor) {
         try {
-            IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
-            IProject[] projects = root.getProjects();
-            
-            for (IProject project : projects) {
-                if (project.isOpen()) {
-                    analyzeProjectRecursive(project, projectContext);
-                }
-            }
+            return projectIndex.getContexts(monitor);
         } catch (Exception e) {
             System.err.println("Error analyzing complete project: " + e.getMessage());
+            return Collections.emptyMap();
         }
-        
-        return projectContext;
+    }
+
+    /**
+     * Índice incremental del workspace
+     */
+    public ProjectCodeIndex getProjectIndex() {
+        return projectIndex;
     }
 
     /**
      * Realiza análisis profundo de un archivo específico
      */
     public CodeContext performDeepAnalysis(String fileName, String content) {
+        CodeContext context = analyzeContent(fileName, content);
+        
+        // Cache del resultado
+        codeContextCache.put(fileName, context);
+        
+        return context;
+    }
+
+    /**
+     * Análisis de un archivo del workspace, reutilizando el resultado persistido si el contenido no cambió
+     * El contenido puede ser el del editor sin guardar
+     */
+    public CodeContext performDeepAnalysis(IFile file, String content) {
+        String path = file.getFullPath().toString();
+        CodeContext context = analyzeCached(path, file.getName(), content, CodeContextStore.UNKNOWN_STAMP);
+        codeContextCache.put(path, context);
+        return context;
+    }
+
+    /**
+     * Resultado persistido del archivo si se guardó con la misma marca de modificación
+     */
+    CodeContext lookupStored(IFile file, long modificationStamp) {
+        String path = file.getFullPath().toString();
+        CodeContext context = getContextStore().lookup(path, modificationStamp);
+        if (context != null) {
+            context.setFilePath(path);
+        }
+        return context;
+    }
+
+    /**
+     * Elimina el resultado persistido de un archivo borrado
+     */
+    void forgetStored(String path) {
+        getContextStore().remove(path);
+    }
+
+    /**
+     * Análisis con la cache persistente: por hash del contenido y, si falla, análisis completo
+     */
+    CodeContext analyzeCached(String path, String fileName, String content, long modificationStamp) {
+        CodeContext context = getContextStore().lookup(path, content, modificationStamp);
+        if (context == null) {
+            context = analyzeContent(fileName, content);
+            getContextStore().store(path, content, modificationStamp, context);
+        }
+        context.setFilePath(path);
+        return context;
+    }
+
+    /**
+     * Análisis sin efectos sobre la cache del editor
+     */
+    CodeContext analyzeContent(String fileName, String content) {
+        long startNanos = System.nanoTime();
+        long startBytes = currentThreadAllocatedBytes();
+        
+        // Árbol sintáctico compartido con el resto de analizadores del mismo texto
+        AbapSyntaxTree tree = AbapParser.getInstance().getTree(content);
+        return analyzeTree(fileName, tree, startNanos, startBytes);
+    }
+
+    /**
+     * Análisis de un árbol ya construido, p. ej. el modelo vivo de un editor
+     */
+    CodeContext analyzeTree(String fileName, AbapSyntaxTree tree) {
+        return analyzeTree(fileName, tree, System.nanoTime(), currentThreadAllocatedBytes());
+    }
+
+    private CodeContext analyzeTree(String fileName, AbapSyntaxTree tree, long startNanos, long startBytes) {
         CodeContext context = new CodeContext(fileName);
         
         // 1. Code Understanding - Análisis estructural
-        analyzeCodeStructure(content, context);
+        analyzeCodeStructure(tree, context);
         
         // 2. Variable Tracking - Seguimiento de variables
-        trackVariables(content, context);
+        trackVariables(tree, context);
         
         // 3. Dependency Analysis - Análisis de dependencias  
-        analyzeDependencies(content, context);
+        analyzeDependencies(tree, context);
         
-        // Cache del resultado
-        codeContextCache.put(fileName, context);
+        // Coste del análisis por archivo
+        context.addMetadata(METADATA_TOKENS, String.valueOf(tree.getTokens().size()));
+        context.addMetadata(METADATA_TIME_MS, String.valueOf((System.nanoTime() - startNanos) / 1_000_000));
+        long endBytes = currentThreadAllocatedBytes();
+        if (startBytes >= 0 && endBytes >= 0) {
+            context.addMetadata(METADATA_ALLOCATED_BYTES, String.valueOf(endBytes - startBytes));
+        }
         
         return context;
     }
@@ -118,60 +220,184 @@ public class CodeAnalysisService {
     /**
      * Analiza la estructura del código
      */
-    private void analyzeCodeStructure(String content, CodeContext context) {
+    private void analyzeCodeStructure(AbapSyntaxTree tree, CodeContext context) {
         // Detectar tipo de programa ABAP
-        context.setProgramType(detectProgramType(content));
+        context.setProgramType(detectProgramType(tree));
         
         // Encontrar clases
-        Matcher classMatcher = CLASS_DEFINITION_PATTERN.matcher(content);
-        while (classMatcher.find()) {
-            context.addClassName(classMatcher.group(1));
+        for (AbapBlock classBlock : tree.getBlocks(AbapBlock.Type.CLASS_DEFINITION)) {
+            if (classBlock.getName() != null) {
+                context.addClassName(classBlock.getName());
+            }
         }
         
-        // Encontrar includes
-        Matcher includeMatcher = INCLUDE_PATTERN.matcher(content);
-        while (includeMatcher.find()) {
-            context.addInclude(includeMatcher.group(1));
+        for (AbapStatement statement : tree.getStatements()) {
+            if (statement.startsWith("INCLUDE") && !statement.startsWith("INCLUDE", "TYPE")
+                    && !statement.startsWith("INCLUDE", "STRUCTURE")) {
+                // Encontrar includes
+                for (List<AbapToken> part : statement.getChainParts()) {
+                    context.addInclude(part.get(0).getText());
+                }
+            } else if (statement.startsWith("CALL", "METHOD") || statement.startsWith("CALL", "FUNCTION")) {
+                // Encontrar llamadas a métodos/funciones
+                if (statement.getTokens().size() > 2) {
+                    context.addMethodCall(calleeName(statement.getTokens(), 2));
+                }
+            } else if (statement.startsWith("PERFORM")) {
+                for (List<AbapToken> part : statement.getChainParts()) {
+                    context.addMethodCall(calleeName(part, 0));
+                }
+            }
         }
-        
-        // Encontrar llamadas a métodos/funciones
-        Matcher methodMatcher = METHOD_CALL_PATTERN.matcher(content);
-        while (methodMatcher.find()) {
-            context.addMethodCall(methodMatcher.group(1));
+    }
+    
+    /**
+     * Nombre llamado: tokens contiguos (lo_obj->metodo, zcl_x=>metodo) o literal sin comillas ('Z_FUNCION')
+     */
+    private static String calleeName(List<AbapToken> tokens, int start) {
+        AbapToken first = tokens.get(start);
+        if (first.is(AbapToken.Type.STRING_LITERAL)) {
+            String text = first.getText();
+            return text.length() >= 2 ? text.substring(1, text.length() - 1) : text;
         }
+        StringBuilder name = new StringBuilder(first.getText());
+        for (int i = start + 1; i < tokens.size(); i++) {
+            AbapToken token = tokens.get(i);
+            if (token.getOffset() != tokens.get(i - 1).getEndOffset()
+                    || !(token.isWord() || token.is(AbapToken.Type.OPERATOR))) {
+                break;
+            }
+            name.append(token.getText());
+        }
+        return name.toString();
     }
 
     /**
      * Rastrea variables a través del código
+     * Un único recorrido léxico; declaraciones y usos se resuelven sobre los tokens con búsqueda por hash
      */
-    private void trackVariables(String content, CodeContext context) {
-        // Encontrar declaraciones de variables
-        Matcher varDeclMatcher = VARIABLE_DECLARATION_PATTERN.matcher(content);
-        while (varDeclMatcher.find()) {
-            String varName = varDeclMatcher.group(1);
-            String varType = varDeclMatcher.group(2);
-            int lineNumber = getLineNumber(content, varDeclMatcher.start());
-            
-            VariableInfo varInfo = new VariableInfo(varName, varType, lineNumber);
-            context.addVariable(varInfo);
+    private void trackVariables(AbapSyntaxTree tree, CodeContext context) {
+        Map<String, List<VariableInfo>> declared = new HashMap<>();
+        Set<Integer> declarationOffsets = new HashSet<>();
+        
+        // Encontrar declaraciones de variables, sentencia a sentencia
+        for (AbapStatement statement : tree.getStatements()) {
+            collectDeclarations(statement, declared, declarationOffsets, context);
         }
         
-        // Rastrear uso de variables
-        for (VariableInfo var : context.getVariables()) {
-            Pattern usagePattern = Pattern.compile("(?i)\\b" + Pattern.quote(var.getName()) + "\\b");
-            Matcher usageMatcher = usagePattern.matcher(content);
-            
-            while (usageMatcher.find()) {
-                int lineNumber = getLineNumber(content, usageMatcher.start());
-                var.addUsageLine(lineNumber);
+        // Rastrear uso de variables (ls_row-campo cuenta como uso de ls_row)
+        for (AbapToken token : tree.getTokens()) {
+            if (!token.isWord() || declarationOffsets.contains(token.getOffset())) {
+                continue;
+            }
+            String key = token.getKey();
+            List<VariableInfo> variables = declared.get(key);
+            if (variables == null) {
+                int selector = key.indexOf('-', 1);
+                if (selector > 0) {
+                    variables = declared.get(key.substring(0, selector));
+                }
+            }
+            if (variables != null) {
+                for (VariableInfo var : variables) {
+                    var.addUsageLine(token.getLine());
+                }
+            }
+        }
+    }
+    
+    /**
+     * Registra las declaraciones de una sentencia, incluidas las encadenadas con ':'
+     */
+    private void collectDeclarations(AbapStatement statement, Map<String, List<VariableInfo>> declared,
+            Set<Integer> declarationOffsets, CodeContext context) {
+        List<AbapToken> tokens = statement.getTokens();
+        
+        // Declaraciones en línea: DATA(lv_x) / FIELD-SYMBOL(<fs>)
+        for (int i = 0; i + 2 < tokens.size(); i++) {
+            AbapToken token = tokens.get(i);
+            if ((token.isWord("DATA") || token.isWord("FIELD-SYMBOL"))
+                    && tokens.get(i + 1).is(AbapToken.Type.LPAREN)
+                    && tokens.get(i + 1).getOffset() == token.getEndOffset()
+                    && tokens.get(i + 2).isWord()) {
+                declare(tokens.get(i + 2), "INLINE", declared, declarationOffsets, context);
+            }
+        }
+        
+        AbapToken first = tokens.get(0);
+        if (!first.isWord() || !DECLARATION_KEYWORDS.contains(first.getKey())) {
+            return;
+        }
+        if (tokens.size() > 1 && tokens.get(1).is(AbapToken.Type.LPAREN)) {
+            return; // DATA(...) en línea, ya registrada
+        }
+        
+        // Cada parte separada por comas declara un nombre; BEGIN OF ... END OF agrupa componentes
+        int structureDepth = 0;
+        for (List<AbapToken> part : statement.getChainParts()) {
+            structureDepth = declarePart(part, structureDepth, declared, declarationOffsets, context);
+        }
+    }
+    
+    /**
+     * Registra la declaración de una parte; devuelve la profundidad de estructura resultante
+     */
+    private int declarePart(List<AbapToken> part, int structureDepth,
+            Map<String, List<VariableInfo>> declared, Set<Integer> declarationOffsets, CodeContext context) {
+        AbapToken name = part.get(0);
+        int end = part.size();
+        if (name.isWord("BEGIN") && 2 < end && part.get(1).isWord("OF")) {
+            if (structureDepth == 0) {
+                declare(part.get(2), "STRUCTURE", declared, declarationOffsets, context);
+            }
+            return structureDepth + 1;
+        }
+        if (name.isWord("END") && 1 < end && part.get(1).isWord("OF")) {
+            if (2 < end) {
+                declarationOffsets.add(part.get(2).getOffset()); // Cierre, no es un uso
+            }
+            return Math.max(0, structureDepth - 1);
+        }
+        if (structureDepth > 0 || !name.isWord()) {
+            return structureDepth; // Componentes de estructura
+        }
+        
+        // Tipo: lo que sigue a TYPE / LIKE / FOR hasta el primer modificador
+        StringBuilder type = null;
+        for (int i = 1; i < end; i++) {
+            AbapToken token = part.get(i);
+            if (type == null) {
+                if (token.isWord("TYPE") || token.isWord("FOR")) {
+                    type = new StringBuilder();
+                } else if (token.isWord("LIKE")) {
+                    type = new StringBuilder("LIKE");
+                }
+            } else if (token.isWord() && TYPE_END_KEYWORDS.contains(token.getKey())) {
+                break;
+            } else {
+                if (type.length() > 0) {
+                    type.append(' ');
+                }
+                type.append(token.getText());
             }
         }
+        
+        declare(name, type != null && type.length() > 0 ? type.toString() : null, declared, declarationOffsets, context);
+        return structureDepth;
+    }
+    
+    private void declare(AbapToken name, String type, Map<String, List<VariableInfo>> declared,
+            Set<Integer> declarationOffsets, CodeContext context) {
+        VariableInfo varInfo = new VariableInfo(name.getText(), type, name.getLine());
+        context.addVariable(varInfo);
+        declared.computeIfAbsent(name.getKey(), k -> new ArrayList<>(1)).add(varInfo);
+        declarationOffsets.add(name.getOffset());
     }
 
     /**
      * Analiza dependencias entre componentes
      */
-    private void analyzeDependencies(String content, CodeContext context) {
+    private void analyzeDependencies(AbapSyntaxTree tree, CodeContext context) {
         // Analizar dependencias internas
         for (String methodCall : context.getMethodCalls()) {
             DependencyInfo dep = new DependencyInfo(methodCall, "METHOD_CALL");
@@ -184,25 +410,59 @@ public class CodeAnalysisService {
             context.addDependency(dep);
         }
         
-        // Analizar dependencias de tablas de base de datos
-        Pattern tableDependency = Pattern.compile("(?i)(?:select|insert|update|delete).*?from\\s+([\\w-]+)", Pattern.MULTILINE);
-        Matcher tableMatcher = tableDependency.matcher(content);
-        while (tableMatcher.find()) {
-            DependencyInfo dep = new DependencyInfo(tableMatcher.group(1), "DATABASE_TABLE");
-            context.addDependency(dep);
+        // Analizar dependencias de tablas de base de datos (una por tabla, con sus líneas de uso)
+        Map<String, DependencyInfo> tableDependencies = new LinkedHashMap<>();
+        for (AbapStatement statement : tree.getStatements()) {
+            for (AbapToken table : accessedTables(statement)) {
+                DependencyInfo dep = tableDependencies.get(table.getKey());
+                if (dep == null) {
+                    dep = new DependencyInfo(table.getText(), "DATABASE_TABLE");
+                    tableDependencies.put(table.getKey(), dep);
+                    context.addDependency(dep);
+                }
+                dep.addUsageLine(table.getLine());
+            }
+        }
+    }
+    
+    /**
+     * Tablas de base de datos leídas (FROM / JOIN de un SELECT, subconsultas incluidas) o escritas
+     * (INSERT INTO t, INSERT t FROM, UPDATE t SET/FROM, DELETE FROM t)
+     */
+    private static List<AbapToken> accessedTables(AbapStatement statement) {
+        List<AbapToken> tokens = statement.getTokens();
+        if (statement.startsWith("SELECT")) {
+            List<AbapToken> tables = new ArrayList<>(2);
+            for (int i = 1; i + 1 < tokens.size(); i++) {
+                if ((tokens.get(i).isWord("FROM") || tokens.get(i).isWord("JOIN")) && tokens.get(i + 1).isWord()) {
+                    tables.add(tokens.get(i + 1));
+                }
+            }
+            return tables;
+        }
+        if (tokens.size() < 3) {
+            return Collections.emptyList();
         }
+        if (statement.startsWith("INSERT", "INTO") || statement.startsWith("DELETE", "FROM")) {
+            return tokens.get(2).isWord() ? Collections.singletonList(tokens.get(2)) : Collections.emptyList();
+        }
+        if ((statement.startsWith("INSERT") && tokens.get(2).isWord("FROM"))
+                || (statement.startsWith("UPDATE") && (tokens.get(2).isWord("SET") || tokens.get(2).isWord("FROM")))) {
+            return tokens.get(1).isWord() ? Collections.singletonList(tokens.get(1)) : Collections.emptyList();
+        }
+        return Collections.emptyList();
     }
 
     /**
      * Obtiene el contexto completo para ChatGPT incluyendo dependencias
      */
-    public String getEnhancedContextForAI(String currentFileName) {
+    public String getEnhancedContextForAI(String currentFilePath) {
         StringBuilder contextBuilder = new StringBuilder();
         
         // Contexto del archivo actual
-        CodeContext currentContext = codeContextCache.get(currentFileName);
+        CodeContext currentContext = codeContextCache.get(currentFilePath);
         if (currentContext != null) {
-            contextBuilder.append("=== ANÁLISIS DEL ARCHIVO ACTUAL: ").append(currentFileName).append(" ===\n");
+            contextBuilder.append("=== ANÁLISIS DEL ARCHIVO ACTUAL: ").append(currentContext.getFileName()).append(" ===\n");
             contextBuilder.append("Tipo de programa: ").append(currentContext.getProgramType()).append("\n");
             contextBuilder.append("Clases encontradas: ").append(String.join(", ", currentContext.getClassNames())).append("\n");
             contextBuilder.append("Variables declaradas: ").append(currentContext.getVariables().size()).append("\n");
@@ -237,39 +497,40 @@ public class CodeAnalysisService {
     }
 
     // Métodos auxiliares
-    private void analyzeProjectRecursive(IContainer container, Map<String, CodeContext> projectContext) {
-        try {
-            IResource[] members = container.members();
-            for (IResource member : members) {
-                if (member instanceof IFile) {
-                    IFile file = (IFile) member;
-                    if (isABAPFile(file.getName())) {
-                        String content = readFileContent(file);
-                        CodeContext context = performDeepAnalysis(file.getName(), content);
-                        projectContext.put(file.getName(), context);
-                    }
-                } else if (member instanceof IContainer) {
-                    analyzeProjectRecursive((IContainer) member, projectContext);
-                }
-            }
-        } catch (CoreException e) {
-            System.err.println("Error analyzing project recursive: " + e.getMessage());
+    private CodeContextStore getContextStore() {
+        if (contextStore == null) {
+            contextStore = CodeContextStore.getInstance();
         }
+        return contextStore;
     }
 
-    private String detectProgramType(String content) {
-        if (content.matches("(?i).*report\\s+\\w+.*")) return "REPORT";
-        if (content.matches("(?i).*class\\s+\\w+\\s+definition.*")) return "CLASS";
-        if (content.matches("(?i).*function\\s+\\w+.*")) return "FUNCTION";
-        if (content.matches("(?i).*interface\\s+\\w+.*")) return "INTERFACE";
+    private String detectProgramType(AbapSyntaxTree tree) {
+        if (!tree.getStatements("REPORT").isEmpty()) return "REPORT";
+        if (!tree.getBlocks(AbapBlock.Type.CLASS_DEFINITION).isEmpty()) return "CLASS";
+        if (!tree.getBlocks(AbapBlock.Type.FUNCTION).isEmpty()) return "FUNCTION";
+        if (!tree.getBlocks(AbapBlock.Type.INTERFACE).isEmpty()) return "INTERFACE";
         return "PROGRAM";
     }
 
-    private int getLineNumber(String content, int position) {
-        return content.substring(0, position).split("\n").length;
+    /**
+     * Bytes asignados por el hilo actual, o -1 si la JVM no lo soporta
+     */
+    private static long currentThreadAllocatedBytes() {
+        try {
+            java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) bean;
+                if (allocationBean.isThreadAllocatedMemorySupported() && allocationBean.isThreadAllocatedMemoryEnabled()) {
+                    return allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+                }
+            }
+        } catch (LinkageError e) {
+            // com.sun.management no visible desde el bundle
+        }
+        return -1;
     }
 
-    private boolean isABAPFile(String fileName) {
+    static boolean isABAPFile(String fileName) {
         String[] abapExtensions = {".abap", ".txt", ".inc"};
         for (String ext : abapExtensions) {
             if (fileName.toLowerCase().endsWith(ext)) {
@@ -279,7 +540,7 @@ public class CodeAnalysisService {
         return false;
     }
 
-    private String readFileContent(IFile file) {
+    String readFileContent(IFile file) {
         try (Scanner scanner = new Scanner(file.getContents())) {
             return scanner.useDelimiter("\\A").next();
         } catch (Exception e) {
@@ -287,10 +548,35 @@ public class CodeAnalysisService {
         }
     }
 
+    /**
+     * Estadísticas de la cache en memoria, del almacén persistente y del índice del proyecto
+     */
+    public String getCacheStatsSummary() {
+        StringBuilder stats = new StringBuilder(codeContextCache.getStatsSummary());
+        if (contextStore != null) {
+            stats.append("\n").append(contextStore.getStatsSummary());
+        }
+        stats.append("\n").append(AbapParser.getInstance().getCacheStatsSummary());
+        stats.append("\nProject index: ").append(projectIndex.size()).append(" files, ")
+            .append(projectIndex.getLastScanSummary());
+        return stats.toString();
+    }
+
     /**
      * Limpia la cache de contexto
      */
     public void clearCache() {
         codeContextCache.clear();
+        getContextStore().clear();
+        AbapParser.getInstance().clearCache();
+    }
+
+    /**
+     * Libera el índice del workspace al parar el plugin
+     */
+    public static void shutdown() {
+        if (instance != null) {
+            instance.projectIndex.dispose();
+        }
     }
 }
@@ -0,0 +1,315 @@
+package com.abap.assistant.services;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.abap.assistant.Activator;
+import com.abap.assistant.models.CodeContext;
+import com.abap.assistant.models.DependencyInfo;
+import com.abap.assistant.models.VariableInfo;
+
+/**
+ * On-disk store of analysis results that survives restarts
+ * One compact binary entry per file, named by the hash of its full path and validated by
+ * modification stamp (no read of the source needed) or, failing that, by content hash
+ */
+public class CodeContextStore {
+
+    private static final String STORE_DIRECTORY = "code-context";
+    private static final String FILE_EXTENSION = ".ctx";
+    private static final int MAGIC = 0x41435458; // "ACTX"
+    private static final int FORMAT_VERSION = 1;
+    // IResource.NULL_STAMP - the stamp is unknown, e.g. unsaved editor content
+    public static final long UNKNOWN_STAMP = -1;
+
+    private static CodeContextStore instance;
+
+    private final File storeDirectory;
+    private final AtomicLong stampHits = new AtomicLong();
+    private final AtomicLong hashHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public CodeContextStore(File storeDirectory) {
+        this.storeDirectory = storeDirectory;
+    }
+
+    public static synchronized CodeContextStore getInstance() {
+        if (instance == null) {
+            instance = new CodeContextStore(Activator.getStateDirectory(STORE_DIRECTORY));
+        }
+        return instance;
+    }
+
+    /**
+     * Stored analysis of the file if it was taken at the same modification stamp
+     */
+    public CodeContext lookup(String path, long modificationStamp) {
+        if (modificationStamp == UNKNOWN_STAMP) {
+            return null;
+        }
+        Entry entry = read(path);
+        if (entry != null && entry.modificationStamp == modificationStamp) {
+            stampHits.incrementAndGet();
+            return entry.context;
+        }
+        return null;
+    }
+
+    /**
+     * Stored analysis of the file if it was taken from identical content
+     * A known stamp that differs from the stored one is recorded so the next lookup can skip the read
+     */
+    public CodeContext lookup(String path, String content, long modificationStamp) {
+        Entry entry = read(path);
+        if (entry != null && Arrays.equals(entry.contentHash, hash(content))) {
+            hashHits.incrementAndGet();
+            if (modificationStamp != UNKNOWN_STAMP && modificationStamp != entry.modificationStamp) {
+                store(path, content, modificationStamp, entry.context);
+            }
+            return entry.context;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Persist an analysis, replacing any previous entry of the same path atomically
+     */
+    public void store(String path, String content, long modificationStamp, CodeContext context) {
+        File target = entryFile(path);
+        File temp = null;
+        try {
+            temp = File.createTempFile("entry", ".tmp", storeDirectory);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeShort(FORMAT_VERSION);
+                out.writeUTF(path);
+                byte[] contentHash = hash(content);
+                out.write(contentHash);
+                out.writeLong(modificationStamp);
+                writeContext(out, context);
+            }
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Failed to store code context for " + path + ": " + e.getMessage());
+            if (temp != null) {
+                temp.delete();
+            }
+        }
+    }
+
+    public void remove(String path) {
+        entryFile(path).delete();
+    }
+
+    public void clear() {
+        File[] files = storeDirectory.listFiles((dir, name) -> name.endsWith(FILE_EXTENSION));
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Get summary of hit/miss counters
+     */
+    public String getStatsSummary() {
+        return String.format("Context store: %d stamp hits, %d hash hits / %d misses",
+            stampHits.get(), hashHits.get(), misses.get());
+    }
+
+    private Entry read(String path) {
+        File file = entryFile(path);
+        if (!file.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readShort() != FORMAT_VERSION) {
+                file.delete();
+                return null;
+            }
+            // Hash collisions of the file name are resolved by the stored path
+            if (!path.equals(in.readUTF())) {
+                return null;
+            }
+            byte[] contentHash = new byte[32];
+            in.readFully(contentHash);
+            long modificationStamp = in.readLong();
+            return new Entry(contentHash, modificationStamp, readContext(in));
+        } catch (IOException | RuntimeException e) {
+            // Truncated or corrupt entry - drop it
+            file.delete();
+            return null;
+        }
+    }
+
+    private File entryFile(String path) {
+        StringBuilder name = new StringBuilder(40);
+        byte[] pathHash = sha256(path.getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < 16; i++) {
+            name.append(String.format("%02x", pathHash[i]));
+        }
+        return new File(storeDirectory, name.append(FILE_EXTENSION).toString());
+    }
+
+    private static void writeContext(DataOutputStream out, CodeContext context) throws IOException {
+        out.writeUTF(context.getFileName());
+        writeNullable(out, context.getProgramType());
+        writeStrings(out, context.getClassNames());
+        writeStrings(out, context.getIncludes());
+        writeStrings(out, context.getMethodCalls());
+        writeMap(out, context.getMetadata());
+
+        out.writeInt(context.getVariables().size());
+        for (VariableInfo variable : context.getVariables()) {
+            out.writeUTF(variable.getName());
+            out.writeUTF(variable.getType());
+            out.writeInt(variable.getDeclarationLine());
+            writeNullable(out, variable.getScope());
+            writeInts(out, variable.getUsageLines());
+            writeMap(out, variable.getAttributes());
+            out.writeBoolean(variable.isParameter());
+            out.writeBoolean(variable.isFieldSymbol());
+            writeNullable(out, variable.getDefaultValue());
+        }
+
+        out.writeInt(context.getDependencies().size());
+        for (DependencyInfo dependency : context.getDependencies()) {
+            out.writeUTF(dependency.getName());
+            out.writeUTF(dependency.getType());
+            writeNullable(out, dependency.getSource());
+            writeStrings(out, dependency.getParameters());
+            writeMap(out, dependency.getMetadata());
+            out.writeInt(dependency.getUsageCount());
+            writeInts(out, dependency.getUsageLines());
+            out.writeBoolean(dependency.isExternal());
+            writeNullable(out, dependency.getDescription());
+        }
+    }
+
+    private static CodeContext readContext(DataInputStream in) throws IOException {
+        CodeContext context = new CodeContext(in.readUTF());
+        context.setProgramType(readNullable(in));
+        for (int i = in.readInt(); i > 0; i--) {
+            context.addClassName(in.readUTF());
+        }
+        for (int i = in.readInt(); i > 0; i--) {
+            context.addInclude(in.readUTF());
+        }
+        for (int i = in.readInt(); i > 0; i--) {
+            context.addMethodCall(in.readUTF());
+        }
+        readMap(in, context.getMetadata());
+
+        for (int i = in.readInt(); i > 0; i--) {
+            VariableInfo variable = new VariableInfo(in.readUTF(), in.readUTF(), in.readInt());
+            variable.setScope(readNullable(in));
+            readInts(in, variable.getUsageLines());
+            readMap(in, variable.getAttributes());
+            variable.setParameter(in.readBoolean());
+            variable.setFieldSymbol(in.readBoolean());
+            variable.setDefaultValue(readNullable(in));
+            context.addVariable(variable);
+        }
+
+        for (int i = in.readInt(); i > 0; i--) {
+            DependencyInfo dependency = new DependencyInfo(in.readUTF(), in.readUTF());
+            dependency.setSource(readNullable(in));
+            for (int j = in.readInt(); j > 0; j--) {
+                dependency.addParameter(in.readUTF());
+            }
+            readMap(in, dependency.getMetadata());
+            dependency.setUsageCount(in.readInt());
+            readInts(in, dependency.getUsageLines());
+            dependency.setExternal(in.readBoolean());
+            dependency.setDescription(readNullable(in));
+            context.addDependency(dependency);
+        }
+        return context;
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeStrings(DataOutputStream out, List<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (String value : values) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, List<Integer> values) throws IOException {
+        out.writeInt(values.size());
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static void readInts(DataInputStream in, List<Integer> target) throws IOException {
+        for (int i = in.readInt(); i > 0; i--) {
+            target.add(in.readInt());
+        }
+    }
+
+    private static void writeMap(DataOutputStream out, Map<String, String> values) throws IOException {
+        out.writeInt(values.size());
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeUTF(entry.getValue());
+        }
+    }
+
+    private static void readMap(DataInputStream in, Map<String, String> target) throws IOException {
+        for (int i = in.readInt(); i > 0; i--) {
+            target.put(in.readUTF(), in.readUTF());
+        }
+    }
+
+    private static byte[] hash(String content) {
+        return sha256(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] sha256(byte[] value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static class Entry {
+        final byte[] contentHash;
+        final long modificationStamp;
+        final CodeContext context;
+
+        Entry(byte[] contentHash, long modificationStamp, CodeContext context) {
+            this.contentHash = contentHash;
+            this.modificationStamp = modificationStamp;
+            this.context = context;
+        }
+    }
+}
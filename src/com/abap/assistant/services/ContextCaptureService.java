@@ -12,6 +12,11 @@ import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.texteditor.ITextEditor;
 import org.eclipse.jface.text.IDocument;
 
+import com.abap.assistant.parser.AbapParser;
+import com.abap.assistant.parser.AbapStatement;
+import com.abap.assistant.parser.AbapSyntaxTree;
+import com.abap.assistant.parser.AbapToken;
+
 /**
  * Service for capturing current development context
  * Analyzes workspace, open files, variables, and includes
@@ -199,13 +204,16 @@ public class ContextCaptureService {
     
     /**
      * Extract ABAP-specific context (variables, includes, etc.)
+     * Reads the shared syntax tree, so code already analyzed elsewhere is not parsed again
      */
     public String captureABAPContext(String code) {
         StringBuilder context = new StringBuilder();
         
         try {
+            AbapSyntaxTree tree = AbapParser.getInstance().getTree(code);
+            
             // Extract DATA declarations
-            List<String> variables = extractABAPVariables(code);
+            List<String> variables = extractABAPVariables(tree);
             if (!variables.isEmpty()) {
                 context.append("Variables found: ");
                 for (String var : variables) {
@@ -215,7 +223,7 @@ public class ContextCaptureService {
             }
             
             // Extract INCLUDE statements
-            List<String> includes = extractABAPIncludes(code);
+            List<String> includes = extractABAPIncludes(tree);
             if (!includes.isEmpty()) {
                 context.append("Includes found: ");
                 for (String inc : includes) {
@@ -225,7 +233,7 @@ public class ContextCaptureService {
             }
             
             // Extract FORM/FUNCTION definitions
-            List<String> routines = extractABAPRoutines(code);
+            List<String> routines = extractABAPRoutines(tree);
             if (!routines.isEmpty()) {
                 context.append("Routines found: ");
                 for (String routine : routines) {
@@ -241,20 +249,21 @@ public class ContextCaptureService {
         return context.toString();
     }
     
-    private List<String> extractABAPVariables(String code) {
+    private List<String> extractABAPVariables(AbapSyntaxTree tree) {
         List<String> variables = new ArrayList<>();
-        String[] lines = code.split("\n");
         
-        for (String line : lines) {
-            String trimmed = line.trim().toUpperCase();
-            if (trimmed.startsWith("DATA ") || trimmed.startsWith("DATA:")) {
-                // Simple extraction - could be enhanced
-                String[] parts = trimmed.split("\\s+");
-                if (parts.length > 1) {
-                    String varName = parts[1].replaceAll("[,:]", "");
-                    if (!varName.isEmpty()) {
-                        variables.add(varName);
-                    }
+        for (AbapStatement statement : tree.getStatements("DATA")) {
+            // Every name of a chained DATA: statement; a BEGIN OF ... END OF structure counts once
+            int structureDepth = 0;
+            for (List<AbapToken> part : statement.getChainParts()) {
+                boolean begin = part.size() > 2 && part.get(0).isWord("BEGIN") && part.get(1).isWord("OF");
+                boolean end = part.size() > 1 && part.get(0).isWord("END") && part.get(1).isWord("OF");
+                if (begin && structureDepth++ == 0) {
+                    variables.add(part.get(2).getKey());
+                } else if (end) {
+                    structureDepth = Math.max(0, structureDepth - 1);
+                } else if (!begin && structureDepth == 0 && part.get(0).isWord()) {
+                    variables.add(part.get(0).getKey());
                 }
             }
         }
@@ -262,37 +271,28 @@ public class ContextCaptureService {
         return variables;
     }
     
-    private List<String> extractABAPIncludes(String code) {
+    private List<String> extractABAPIncludes(AbapSyntaxTree tree) {
         List<String> includes = new ArrayList<>();
-        String[] lines = code.split("\n");
         
-        for (String line : lines) {
-            String trimmed = line.trim().toUpperCase();
-            if (trimmed.startsWith("INCLUDE ")) {
-                String[] parts = trimmed.split("\\s+");
-                if (parts.length > 1) {
-                    includes.add(parts[1].replace(".", ""));
-                }
+        for (AbapStatement statement : tree.getStatements("INCLUDE")) {
+            // INCLUDE TYPE / STRUCTURE copies components into a structure, it is not a source include
+            if (statement.startsWith("INCLUDE", "TYPE") || statement.startsWith("INCLUDE", "STRUCTURE")) {
+                continue;
+            }
+            for (List<AbapToken> part : statement.getChainParts()) {
+                includes.add(part.get(0).getKey());
             }
         }
         
         return includes;
     }
     
-    private List<String> extractABAPRoutines(String code) {
+    private List<String> extractABAPRoutines(AbapSyntaxTree tree) {
         List<String> routines = new ArrayList<>();
-        String[] lines = code.split("\n");
         
-        for (String line : lines) {
-            String trimmed = line.trim().toUpperCase();
-            if (trimmed.startsWith("FORM ") || trimmed.startsWith("FUNCTION ")) {
-                String[] parts = trimmed.split("\\s+");
-                if (parts.length > 1) {
-                    String routineName = parts[1].replace(".", "");
-                    if (!routineName.isEmpty()) {
-                        routines.add(routineName);
-                    }
-                }
+        for (AbapStatement statement : tree.getStatements()) {
+            if ((statement.startsWith("FORM") || statement.startsWith("FUNCTION")) && statement.getTokens().size() > 1) {
+                routines.add(statement.getTokens().get(1).getKey());
             }
         }
         
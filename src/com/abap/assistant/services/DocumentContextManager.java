@@ -1,27 +1,50 @@
 package com.abap.assistant.services;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import com.abap.assistant.parser.AbapParser;
+import com.abap.assistant.parser.AbapToken;
+import com.abap.assistant.retrieval.Bm25Index;
+import com.abap.assistant.retrieval.DocumentChunk;
+import com.abap.assistant.retrieval.DocumentChunker;
+import com.abap.assistant.utils.TokenCounter;
+
 /**
  * Manages document context for ChatGPT queries
  * Provides intelligent chunking, selective context, and token management
+ * Documents are chunked and indexed on ingest; prompts get the chunks most relevant to the question
+ * and code (BM25), not whatever happens to come first
+ * Thread-safe: ingest jobs, chat jobs and the UI share one instance
  */
 public class DocumentContextManager {
     
     private static final int MAX_CONTEXT_TOKENS = 8000; // Conservative token limit
-    private static final int CHARS_PER_TOKEN = 4; // Approximate chars per token
-    private static final int MAX_CONTEXT_CHARS = MAX_CONTEXT_TOKENS * CHARS_PER_TOKEN;
+    private static final int CHUNK_SEPARATOR_TOKENS = 4; // Blank line and a possible "[...]" gap marker
+    private static final String SECTION_RULE = "─".repeat(50);
+    private static final int TOP_K_CHUNKS = 24;
+    // Code identifiers count less than the words of the question itself
+    private static final double CODE_TERM_WEIGHT = 0.5;
     
+    // Insertion order, so unranked context is deterministic
     private Map<String, String> documentContents;
     private Map<String, Boolean> documentEnabled;
     private DocumentProcessorService docProcessor;
+    private final DocumentChunker chunker = new DocumentChunker();
+    private final Bm25Index index = new Bm25Index();
+    
+    // Assembled context, reused until a document is added, removed, enabled or disabled
+    private String cachedContext;
+    private int cachedContextTokens = -1;
+    private Map<String, Double> cachedQueryWeights;
+    private String cachedQueryContext;
     
     public DocumentContextManager() {
-        this.documentContents = new HashMap<>();
-        this.documentEnabled = new HashMap<>();
+        this.documentContents = new LinkedHashMap<>();
+        this.documentEnabled = new LinkedHashMap<>();
         this.docProcessor = new DocumentProcessorService();
     }
     
@@ -29,88 +52,218 @@ public class DocumentContextManager {
      * Add document content to context manager
      */
     public void addDocument(String filePath, String content) {
-        documentContents.put(filePath, content);
-        documentEnabled.put(filePath, true); // Enable by default
+        addDocuments(Collections.singletonList(new PreparedDocument(filePath, content, chunker.chunk(filePath, content))));
+    }
+    
+    /**
+     * Add extracted and chunked documents in one step: concurrent readers see all of them or none
+     */
+    public synchronized void addDocuments(List<PreparedDocument> documents) {
+        for (PreparedDocument document : documents) {
+            documentContents.put(document.getFilePath(), document.getContent());
+            documentEnabled.put(document.getFilePath(), true); // Enable by default
+            index.addDocument(document.getFilePath(), document.getChunks());
+        }
+        invalidateContext();
     }
     
     /**
      * Remove document from context
      */
-    public void removeDocument(String filePath) {
+    public synchronized void removeDocument(String filePath) {
         documentContents.remove(filePath);
         documentEnabled.remove(filePath);
+        index.removeDocument(filePath);
+        invalidateContext();
     }
     
     /**
      * Enable/disable document for context inclusion
      */
-    public void setDocumentEnabled(String filePath, boolean enabled) {
-        if (documentContents.containsKey(filePath)) {
-            documentEnabled.put(filePath, enabled);
+    public synchronized void setDocumentEnabled(String filePath, boolean enabled) {
+        if (documentContents.containsKey(filePath) && documentEnabled.put(filePath, enabled) != enabled) {
+            invalidateContext();
         }
     }
     
     /**
      * Get list of available documents
      */
-    public List<String> getAvailableDocuments() {
+    public synchronized List<String> getAvailableDocuments() {
         return new ArrayList<>(documentContents.keySet());
     }
     
     /**
      * Check if document is enabled for context
      */
-    public boolean isDocumentEnabled(String filePath) {
+    public synchronized boolean isDocumentEnabled(String filePath) {
         return documentEnabled.getOrDefault(filePath, false);
     }
     
     /**
-     * Build context string from enabled documents
+     * Build context string from enabled documents, leading chunks first, within the context budget
+     */
+    public synchronized String buildContext() {
+        if (cachedContext == null) {
+            List<DocumentChunk> candidates = new ArrayList<>();
+            for (String filePath : documentContents.keySet()) {
+                if (documentEnabled.getOrDefault(filePath, false)) {
+                    candidates.addAll(index.getChunks(filePath));
+                }
+            }
+            cachedContext = formatContext(selectWithinBudget(candidates));
+        }
+        return cachedContext;
+    }
+    
+    /**
+     * Tokens of {@link #buildContext()}, counted once per document change
+     */
+    public synchronized int getContextTokenCount() {
+        if (cachedContextTokens < 0) {
+            cachedContextTokens = TokenCounter.getInstance().countTokens(buildContext());
+        }
+        return cachedContextTokens;
+    }
+    
+    /**
+     * Build context from the chunks of enabled documents most relevant to the query, within the context budget
+     * Falls back to {@link #buildContext()} when no chunk matches any query term
+     */
+    public String buildContext(String query) {
+        return buildContext(queryWeights(query, null));
+    }
+    
+    private synchronized String buildContext(Map<String, Double> queryWeights) {
+        // Retries and repeated questions over unchanged documents reuse the last ranking
+        if (queryWeights.equals(cachedQueryWeights)) {
+            return cachedQueryContext;
+        }
+        cachedQueryContext = rankContext(queryWeights);
+        cachedQueryWeights = queryWeights;
+        return cachedQueryContext;
+    }
+    
+    private String rankContext(Map<String, Double> queryWeights) {
+        List<Bm25Index.Hit> hits = index.search(queryWeights, TOP_K_CHUNKS,
+            filePath -> documentEnabled.getOrDefault(filePath, false));
+        if (hits.isEmpty()) {
+            return buildContext();
+        }
+        List<DocumentChunk> ranked = new ArrayList<>(hits.size());
+        for (Bm25Index.Hit hit : hits) {
+            ranked.add(hit.getChunk());
+        }
+        return formatContext(selectWithinBudget(ranked));
+    }
+    
+    /**
+     * Query terms of the prompt plus, at lower weight, the identifiers and literals of the ABAP code
+     */
+    private static Map<String, Double> queryWeights(String userPrompt, String selectedCode) {
+        Map<String, Double> weights = new LinkedHashMap<>();
+        if (selectedCode != null && !selectedCode.trim().isEmpty()) {
+            // Keywords (DATA, SELECT...) appear in every spec; only names say what the code is about
+            StringBuilder names = new StringBuilder();
+            for (AbapToken token : AbapParser.getInstance().getTree(selectedCode).getTokens()) {
+                if (token.is(AbapToken.Type.IDENTIFIER) || token.is(AbapToken.Type.STRING_LITERAL)) {
+                    names.append(token.getText()).append(' ');
+                }
+            }
+            for (String term : Bm25Index.terms(names.toString())) {
+                weights.put(term, CODE_TERM_WEIGHT);
+            }
+        }
+        if (userPrompt != null) {
+            for (String term : Bm25Index.terms(userPrompt)) {
+                weights.put(term, 1.0);
+            }
+        }
+        return weights;
+    }
+    
+    /**
+     * Take chunks in the given order while they fit; a chunk too large for what is left is skipped
+     */
+    private List<DocumentChunk> selectWithinBudget(List<DocumentChunk> candidates) {
+        List<DocumentChunk> selected = new ArrayList<>();
+        List<String> documents = new ArrayList<>();
+        int totalTokens = 0;
+        for (DocumentChunk chunk : candidates) {
+            int cost = chunk.getTokenCount() + CHUNK_SEPARATOR_TOKENS;
+            if (!documents.contains(chunk.getDocumentPath())) {
+                // Section counts are not known yet; size the header for the widest form
+                int total = index.getChunks(chunk.getDocumentPath()).size();
+                cost += TokenCounter.getInstance().countTokens(documentHeader(chunk.getDocumentPath(), total, total + 1));
+            }
+            if (totalTokens + cost > MAX_CONTEXT_TOKENS) {
+                continue;
+            }
+            if (!documents.contains(chunk.getDocumentPath())) {
+                documents.add(chunk.getDocumentPath());
+            }
+            selected.add(chunk);
+            totalTokens += cost;
+        }
+        return selected;
+    }
+    
+    /**
+     * One section per document in document order, its chunks in text order; gaps between
+     * non-adjacent chunks are marked so the model knows text was left out
      */
-    public String buildContext() {
-        StringBuilder context = new StringBuilder();
-        int totalChars = 0;
+    private String formatContext(List<DocumentChunk> selected) {
+        Map<String, List<DocumentChunk>> byDocument = new LinkedHashMap<>();
+        for (String filePath : documentContents.keySet()) {
+            byDocument.put(filePath, new ArrayList<>());
+        }
+        for (DocumentChunk chunk : selected) {
+            byDocument.get(chunk.getDocumentPath()).add(chunk);
+        }
         
-        // Add enabled documents to context
-        for (Map.Entry<String, String> entry : documentContents.entrySet()) {
-            String filePath = entry.getKey();
-            String content = entry.getValue();
-            
-            if (!documentEnabled.getOrDefault(filePath, false)) {
-                continue; // Skip disabled documents
+        int capacity = 0;
+        for (DocumentChunk chunk : selected) {
+            capacity += chunk.getText().length() + 2;
+        }
+        StringBuilder context = new StringBuilder(capacity + byDocument.size() * (SECTION_RULE.length() + 80));
+        for (Map.Entry<String, List<DocumentChunk>> entry : byDocument.entrySet()) {
+            List<DocumentChunk> chunks = entry.getValue();
+            if (chunks.isEmpty()) {
+                continue;
             }
+            chunks.sort((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
+            int totalChunks = index.getChunks(entry.getKey()).size();
             
-            // Check if adding this document exceeds token limit
-            int documentChars = content.length();
-            if (totalChars + documentChars > MAX_CONTEXT_CHARS) {
-                // Smart truncation - try to fit what we can
-                int remainingChars = MAX_CONTEXT_CHARS - totalChars;
-                if (remainingChars > 500) { // Only add if meaningful content fits
-                    content = smartTruncate(content, remainingChars);
-                    documentChars = content.length();
-                } else {
-                    break; // Stop adding documents
+            context.append(documentHeader(entry.getKey(), chunks.size(), totalChunks));
+            int previousIndex = -1;
+            for (DocumentChunk chunk : chunks) {
+                if (previousIndex >= 0 && chunk.getIndex() != previousIndex + 1) {
+                    context.append("[...]\n\n");
                 }
+                context.append(chunk.getText()).append("\n\n");
+                previousIndex = chunk.getIndex();
             }
-            
-            context.append("📄 Document: ").append(getFileName(filePath)).append("\n");
-            context.append("─".repeat(50)).append("\n");
-            context.append(content).append("\n\n");
-            
-            totalChars += documentChars + 100; // Add overhead for formatting
         }
         
         return context.toString();
     }
     
+    private String documentHeader(String filePath, int shownChunks, int totalChunks) {
+        StringBuilder header = new StringBuilder("📄 Document: ").append(getFileName(filePath));
+        if (shownChunks < totalChunks) {
+            header.append(" (").append(shownChunks).append(" of ").append(totalChunks).append(" sections)");
+        }
+        return header.append("\n").append(SECTION_RULE).append("\n").toString();
+    }
+    
     /**
      * Build contextual query combining user prompt with document context
      */
     public String buildContextualQuery(String userPrompt, String selectedCode) {
-        StringBuilder query = new StringBuilder();
-        
-        // Add document context if available
-        String context = buildContext();
+        // Add the document passages relevant to this prompt and code
+        String context = buildContext(queryWeights(userPrompt, selectedCode));
+        StringBuilder query = new StringBuilder(context.length() + (userPrompt != null ? userPrompt.length() : 0)
+            + (selectedCode != null ? selectedCode.length() : 0) + 512);
         if (!context.trim().isEmpty()) {
             query.append("📋 CONTEXT DOCUMENTATION:\n");
             query.append(context);
@@ -137,33 +290,6 @@ public class DocumentContextManager {
         return query.toString();
     }
     
-    /**
-     * Smart truncation that tries to preserve meaningful content
-     */
-    private String smartTruncate(String content, int maxChars) {
-        if (content.length() <= maxChars) {
-            return content;
-        }
-        
-        // Try to find a good break point (end of paragraph or sentence)
-        int cutPoint = maxChars - 100; // Leave room for truncation message
-        
-        // Look for paragraph break
-        int paragraphBreak = content.lastIndexOf("\n\n", cutPoint);
-        if (paragraphBreak > maxChars / 2) {
-            return content.substring(0, paragraphBreak) + "\n\n... [Document truncated for token limit]";
-        }
-        
-        // Look for sentence break
-        int sentenceBreak = content.lastIndexOf(". ", cutPoint);
-        if (sentenceBreak > maxChars / 2) {
-            return content.substring(0, sentenceBreak + 1) + " ... [Document truncated for token limit]";
-        }
-        
-        // Fallback to hard cut
-        return content.substring(0, cutPoint) + "... [Document truncated for token limit]";
-    }
-    
     /**
      * Extract filename from full path
      */
@@ -175,36 +301,90 @@ public class DocumentContextManager {
     /**
      * Clear all documents from context
      */
-    public void clearAllDocuments() {
+    public synchronized void clearAllDocuments() {
         documentContents.clear();
         documentEnabled.clear();
+        index.clear();
+        invalidateContext();
+    }
+    
+    private void invalidateContext() {
+        cachedContext = null;
+        cachedContextTokens = -1;
+        cachedQueryWeights = null;
+        cachedQueryContext = null;
     }
     
     /**
      * Get summary of current context state
      */
-    public String getContextSummary() {
+    public synchronized String getContextSummary() {
         int totalDocs = documentContents.size();
         int enabledDocs = (int) documentEnabled.values().stream().mapToInt(b -> b ? 1 : 0).sum();
-        int totalChars = buildContext().length();
-        int approxTokens = totalChars / CHARS_PER_TOKEN;
+        String approximate = TokenCounter.getInstance().hasVocabulary() ? "" : "~";
         
-        return String.format("📊 Context: %d/%d docs enabled, ~%d tokens used", 
-                            enabledDocs, totalDocs, approxTokens);
+        return String.format("📊 Context: %d/%d docs enabled, %s%d tokens used", 
+                            enabledDocs, totalDocs, approximate, getContextTokenCount());
     }
     
     /**
      * Check if we have any enabled context
      */
-    public boolean hasContext() {
+    public synchronized boolean hasContext() {
         return documentEnabled.containsValue(true) && !documentContents.isEmpty();
     }
     
     /**
-     * Process and add document from file path
+     * Process and add document from file path, returning its text
+     */
+    public String processAndAddDocument(String filePath) throws Exception {
+        PreparedDocument document = prepareDocument(filePath);
+        addDocuments(Collections.singletonList(document));
+        return document.getContent();
+    }
+    
+    /**
+     * Extract and chunk a document without adding it; runs outside the lock, so files can be prepared in parallel
+     * Text and chunks extracted earlier, in this or a previous session, are reused while the file is unchanged
      */
-    public void processAndAddDocument(String filePath) throws Exception {
-        String content = docProcessor.processDocument(filePath);
-        addDocument(filePath, content);
+    public PreparedDocument prepareDocument(String filePath) throws Exception {
+        DocumentTextStore store = DocumentTextStore.getInstance();
+        int maxChars = DocumentProcessorService.MAX_CONTENT_LENGTH;
+        DocumentTextStore.Extracted stored = store.lookup(filePath, maxChars, chunker.getTargetChars());
+        if (stored != null) {
+            return new PreparedDocument(filePath, stored.getText(), stored.getChunks(filePath));
+        }
+        
+        String content = docProcessor.processDocument(filePath, maxChars);
+        List<DocumentChunk> chunks = chunker.chunk(filePath, content);
+        store.store(filePath, maxChars, chunker.getTargetChars(), content, chunks);
+        return new PreparedDocument(filePath, content, chunks);
+    }
+    
+    /**
+     * Text and chunks of a document, ready to be added
+     */
+    public static final class PreparedDocument {
+        private final String filePath;
+        private final String content;
+        private final List<DocumentChunk> chunks;
+        
+        PreparedDocument(String filePath, String content, List<DocumentChunk> chunks) {
+            this.filePath = filePath;
+            this.content = content;
+            this.chunks = chunks;
+        }
+        
+        public String getFilePath() {
+            return filePath;
+        }
+        
+        public String getContent() {
+            return content;
+        }
+        
+        public List<DocumentChunk> getChunks() {
+            return chunks;
+        }
     }
 }
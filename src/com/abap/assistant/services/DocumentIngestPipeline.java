@@ -0,0 +1,168 @@
+package com.abap.assistant.services;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+/**
+ * Attaches a batch of files and folders to a context manager
+ * A bounded pool extracts and chunks the files in parallel (reusing stored text), then every document
+ * that succeeded is indexed in one atomic step; cancelling before that leaves the context untouched
+ */
+public class DocumentIngestPipeline {
+
+    // Extraction is CPU-bound for PDF/DOCX and each worker holds a parsed document in memory
+    private static final int PARSE_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final long PROGRESS_INTERVAL_MS = 100;
+    private static final int MAX_FOLDER_DEPTH = 4;
+
+    private final DocumentContextManager contextManager;
+    private final DocumentProcessorService docProcessor = new DocumentProcessorService();
+
+    public DocumentIngestPipeline(DocumentContextManager contextManager) {
+        this.contextManager = contextManager;
+    }
+
+    /**
+     * Process the files and the supported files inside the folders, then add them all to the context
+     */
+    public Result ingest(List<String> paths, IProgressMonitor monitor) {
+        long startNanos = System.nanoTime();
+        List<String> files = expand(paths);
+        Result result = new Result();
+        monitor.beginTask("Attaching documents", files.size() + 1);
+
+        DocumentContextManager.PreparedDocument[] prepared = new DocumentContextManager.PreparedDocument[files.size()];
+        ExecutorService parsers = Executors.newFixedThreadPool(PARSE_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "ABAP Assistant document parser");
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletionService<Integer> completion = new ExecutorCompletionService<>(parsers);
+        try {
+            for (int i = 0; i < files.size(); i++) {
+                int fileIndex = i;
+                completion.submit(() -> {
+                    String file = files.get(fileIndex);
+                    try {
+                        prepared[fileIndex] = contextManager.prepareDocument(file);
+                    } catch (Exception e) {
+                        synchronized (result) {
+                            result.failures.put(file, e.getMessage() != null ? e.getMessage() : e.toString());
+                        }
+                    }
+                    return fileIndex;
+                });
+            }
+
+            int done = 0;
+            while (done < files.size()) {
+                if (monitor.isCanceled()) {
+                    result.cancelled = true;
+                    return result;
+                }
+                Future<Integer> finished = completion.poll(PROGRESS_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (finished == null) {
+                    continue;
+                }
+                int fileIndex = finished.get();
+                done++;
+                monitor.worked(1);
+                monitor.subTask(String.format("Processed %d/%d documents: %s", done, files.size(),
+                    Paths.get(files.get(fileIndex)).getFileName()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.cancelled = true;
+            return result;
+        } catch (ExecutionException e) {
+            // Tasks catch their own failures; anything else is a bug
+            throw new IllegalStateException("Document ingest failed", e.getCause());
+        } finally {
+            parsers.shutdownNow();
+            result.elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        }
+
+        // Selection order, not completion order
+        for (DocumentContextManager.PreparedDocument document : prepared) {
+            if (document != null) {
+                result.documents.add(document);
+            }
+        }
+        monitor.subTask("Indexing " + result.documents.size() + " documents");
+        contextManager.addDocuments(result.documents);
+        monitor.worked(1);
+        monitor.done();
+        result.elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        return result;
+    }
+
+    /**
+     * Files as given, folders replaced by the supported files below them; duplicates removed
+     */
+    private List<String> expand(List<String> paths) {
+        Set<String> files = new LinkedHashSet<>();
+        for (String path : paths) {
+            Path file = Paths.get(path);
+            if (!Files.isDirectory(file)) {
+                files.add(path);
+                continue;
+            }
+            try (Stream<Path> walk = Files.walk(file, MAX_FOLDER_DEPTH)) {
+                files.addAll(walk.filter(Files::isRegularFile)
+                    .map(Path::toString)
+                    .filter(docProcessor::isSupportedFileType)
+                    .sorted()
+                    .collect(Collectors.toList()));
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Error listing folder " + path + ": " + e.getMessage());
+            }
+        }
+        return new ArrayList<>(files);
+    }
+
+    /**
+     * Documents added, files that failed with their error, and whether the batch was cancelled
+     */
+    public static final class Result {
+        private final List<DocumentContextManager.PreparedDocument> documents = new ArrayList<>();
+        private final Map<String, String> failures = new LinkedHashMap<>();
+        private boolean cancelled;
+        private long elapsedMillis;
+
+        public List<DocumentContextManager.PreparedDocument> getDocuments() {
+            return Collections.unmodifiableList(documents);
+        }
+
+        public synchronized Map<String, String> getFailures() {
+            return new LinkedHashMap<>(failures);
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+    }
+}
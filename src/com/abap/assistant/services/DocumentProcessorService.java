@@ -3,28 +3,49 @@ package com.abap.assistant.services;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.poi.hwpf.HWPFDocument;
 import org.apache.poi.hwpf.extractor.WordExtractor;
 import org.apache.poi.xwpf.extractor.XWPFWordExtractor;
 import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.text.PDFTextStripper;
 
+import com.abap.assistant.utils.BoundedTextReader;
+
 /**
  * Service for processing various document formats
- * Supports PDF, DOC, DOCX, TXT, and ABAP files
+ * Supports PDF, DOC, DOCX, TXT, LOG, and ABAP files
  */
 public class DocumentProcessorService {
     
-    private static final int MAX_CONTENT_LENGTH = 10000; // Limit content to prevent token overflow
+    public static final int MAX_CONTENT_LENGTH = 10000; // Limit content to prevent token overflow
+    
+    // PDF pages are stripped in batches so extraction stops once the budget is filled
+    private static final int PDF_PAGES_PER_BATCH = 8;
+    // Parallel stripping opens one document per thread; only worth it when many pages are still needed
+    private static final int PDF_PARALLEL_MIN_PAGES = 64;
+    private static final int PDF_THREADS = Math.min(4, Runtime.getRuntime().availableProcessors());
     
     /**
      * Process document and extract text content
      */
     public String processDocument(String filePath) throws IOException {
+        return processDocument(filePath, MAX_CONTENT_LENGTH);
+    }
+    
+    /**
+     * Process document and extract at most maxChars characters of text content
+     */
+    public String processDocument(String filePath, int maxChars) throws IOException {
         File file = new File(filePath);
         if (!file.exists()) {
             throw new IOException("File not found: " + filePath);
@@ -35,7 +56,7 @@ public class DocumentProcessorService {
         
         switch (extension) {
             case "pdf":
-                content = processPDF(filePath);
+                content = processPDF(filePath, maxChars);
                 break;
             case "doc":
                 content = processDOC(filePath);
@@ -48,29 +69,106 @@ public class DocumentProcessorService {
             case "java":
             case "xml":
             case "json":
-                content = processTextFile(filePath);
+                content = processTextFile(filePath, maxChars);
+                break;
+            case "log":
+                // Transport and job logs: errors usually sit at the end, not only the start
+                content = processLogFile(filePath, maxChars);
                 break;
             default:
                 // Try to process as text file
-                content = processTextFile(filePath);
+                content = processTextFile(filePath, maxChars);
                 break;
         }
         
         // Limit content length
-        if (content.length() > MAX_CONTENT_LENGTH) {
-            content = content.substring(0, MAX_CONTENT_LENGTH) + "\n\n... (content truncated)";
+        if (content.length() > maxChars) {
+            content = content.substring(0, maxChars) + "\n\n... (content truncated)";
         }
         
         return content;
     }
     
     /**
-     * Process PDF files using PDFBox
+     * Process PDF files using PDFBox, page batch by page batch until more than maxChars are extracted
+     * Parsed objects are buffered in a temp file instead of the heap, so large specs keep memory flat
      */
-    private String processPDF(String filePath) throws IOException {
-        try (PDDocument document = PDDocument.load(new File(filePath))) {
+    private String processPDF(String filePath, int maxChars) throws IOException {
+        File file = new File(filePath);
+        StringBuilder text = new StringBuilder();
+        try (PDDocument document = PDDocument.load(file, MemoryUsageSetting.setupTempFileOnly())) {
+            int pageCount = document.getNumberOfPages();
             PDFTextStripper stripper = new PDFTextStripper();
-            return stripper.getText(document);
+            int nextPage = 1;
+            while (nextPage <= pageCount && text.length() <= maxChars) {
+                int pagesNeeded = estimatePagesNeeded(text.length(), nextPage - 1, maxChars);
+                if (pagesNeeded >= PDF_PARALLEL_MIN_PAGES && PDF_THREADS > 1) {
+                    // A quarter more than the estimate, so one parallel round usually fills the budget
+                    int lastPage = Math.min(pageCount, nextPage + pagesNeeded + pagesNeeded / 4 - 1);
+                    text.append(stripPagesInParallel(file, nextPage, lastPage));
+                    nextPage = lastPage + 1;
+                } else {
+                    int lastPage = Math.min(pageCount, nextPage + PDF_PAGES_PER_BATCH - 1);
+                    stripper.setStartPage(nextPage);
+                    stripper.setEndPage(lastPage);
+                    text.append(stripper.getText(document));
+                    nextPage = lastPage + 1;
+                }
+            }
+        }
+        return text.toString();
+    }
+    
+    /**
+     * Pages still needed at the average text density of the pages stripped so far
+     */
+    private static int estimatePagesNeeded(int extractedChars, int strippedPages, int maxChars) {
+        if (strippedPages == 0 || extractedChars == 0) {
+            return PDF_PAGES_PER_BATCH;
+        }
+        double charsPerPage = (double) extractedChars / strippedPages;
+        return (int) Math.ceil((maxChars + 1 - extractedChars) / charsPerPage);
+    }
+    
+    /**
+     * Strip a page range split across threads; PDDocument is not thread-safe, so each thread loads its own
+     */
+    private String stripPagesInParallel(File file, int firstPage, int lastPage) throws IOException {
+        int pagesPerThread = (lastPage - firstPage + PDF_THREADS) / PDF_THREADS;
+        ExecutorService strippers = Executors.newFixedThreadPool(PDF_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "ABAP Assistant PDF stripper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<String>> ranges = new ArrayList<>();
+            for (int start = firstPage; start <= lastPage; start += pagesPerThread) {
+                int rangeStart = start;
+                int rangeEnd = Math.min(lastPage, start + pagesPerThread - 1);
+                ranges.add(strippers.submit(() -> {
+                    try (PDDocument document = PDDocument.load(file, MemoryUsageSetting.setupTempFileOnly())) {
+                        PDFTextStripper stripper = new PDFTextStripper();
+                        stripper.setStartPage(rangeStart);
+                        stripper.setEndPage(rangeEnd);
+                        return stripper.getText(document);
+                    }
+                }));
+            }
+            StringBuilder text = new StringBuilder();
+            for (Future<String> range : ranges) {
+                text.append(range.get());
+            }
+            return text.toString();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("PDF extraction interrupted: " + file.getName(), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("PDF extraction failed: " + file.getName(), e.getCause());
+        } finally {
+            strippers.shutdownNow();
         }
     }
     
@@ -97,10 +195,18 @@ public class DocumentProcessorService {
     }
     
     /**
-     * Process text-based files
+     * Process text-based files, reading only the start of the file in its detected encoding
+     */
+    private String processTextFile(String filePath, int maxChars) throws IOException {
+        // One character over the budget, so truncation is still reported
+        return BoundedTextReader.readHead(Paths.get(filePath), maxChars + 1);
+    }
+    
+    /**
+     * Process log files as start, middle and end samples within the budget
      */
-    private String processTextFile(String filePath) throws IOException {
-        return new String(Files.readAllBytes(Paths.get(filePath)));
+    private String processLogFile(String filePath, int maxChars) throws IOException {
+        return BoundedTextReader.readSampled(Paths.get(filePath), maxChars);
     }
     
     /**
@@ -126,7 +232,8 @@ public class DocumentProcessorService {
                extension.equals("abap") || 
                extension.equals("java") || 
                extension.equals("xml") || 
-               extension.equals("json");
+               extension.equals("json") || 
+               extension.equals("log");
     }
     
     /**
@@ -134,7 +241,7 @@ public class DocumentProcessorService {
      */
     public static String[] getSupportedExtensions() {
         return new String[] {
-            "*.pdf", "*.doc", "*.docx", "*.txt", "*.abap", "*.java", "*.xml", "*.json", "*.*"
+            "*.pdf", "*.doc", "*.docx", "*.txt", "*.abap", "*.java", "*.xml", "*.json", "*.log", "*.*"
         };
     }
     
@@ -144,7 +251,7 @@ public class DocumentProcessorService {
     public static String[] getSupportedDescriptions() {
         return new String[] {
             "PDF Files", "Word Documents (DOC)", "Word Documents (DOCX)", 
-            "Text Files", "ABAP Files", "Java Files", "XML Files", "JSON Files", "All Files"
+            "Text Files", "ABAP Files", "Java Files", "XML Files", "JSON Files", "Log Files", "All Files"
         };
     }
 }
@@ -0,0 +1,306 @@
+package com.abap.assistant.services;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.abap.assistant.Activator;
+import com.abap.assistant.retrieval.DocumentChunk;
+
+/**
+ * On-disk cache of the text extracted from attached documents and of its chunk boundaries
+ * Entries are named by the hash of the file path and validated by file size and modification time or,
+ * failing that, by a hash of the file bytes - still far cheaper than parsing a PDF or DOCX again
+ * Least recently used entries are deleted once the store outgrows its size limit
+ */
+public class DocumentTextStore {
+
+    private static final String STORE_DIRECTORY = "document-text";
+    private static final String FILE_EXTENSION = ".dtx";
+    private static final int MAGIC = 0x41445458; // "ADTX"
+    // Bump when extraction changes, so text extracted the old way is not reused
+    private static final int FORMAT_VERSION = 2;
+    private static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private static DocumentTextStore instance;
+
+    private final File storeDirectory;
+    private final long maxBytes;
+    private final AtomicLong stampHits = new AtomicLong();
+    private final AtomicLong hashHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public DocumentTextStore(File storeDirectory, long maxBytes) {
+        this.storeDirectory = storeDirectory;
+        this.maxBytes = maxBytes;
+    }
+
+    public static synchronized DocumentTextStore getInstance() {
+        if (instance == null) {
+            instance = new DocumentTextStore(Activator.getStateDirectory(STORE_DIRECTORY), DEFAULT_MAX_BYTES);
+        }
+        return instance;
+    }
+
+    /**
+     * Stored text of the file if it was extracted from the same bytes with the same character limit
+     * and chunked at the same size
+     */
+    public Extracted lookup(String filePath, int maxChars, int chunkChars) {
+        File source = new File(filePath);
+        File file = entryFile(filePath);
+        Entry entry = source.isFile() ? read(file, filePath) : null;
+        if (entry == null || entry.maxChars != maxChars || entry.chunkChars != chunkChars
+                || entry.size != source.length()) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (entry.lastModified == source.lastModified()) {
+            stampHits.incrementAndGet();
+            file.setLastModified(System.currentTimeMillis()); // Recency for eviction
+            return entry.extracted;
+        }
+        // Touched or copied but possibly identical: compare contents before parsing again
+        byte[] contentHash = hashFile(source);
+        if (contentHash != null && Arrays.equals(contentHash, entry.contentHash)) {
+            hashHits.incrementAndGet();
+            write(filePath, source, contentHash, maxChars, chunkChars, entry.extracted);
+            return entry.extracted;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Persist the text extracted with a character limit and its chunks, replacing any previous entry atomically
+     */
+    public void store(String filePath, int maxChars, int chunkChars, String text, List<DocumentChunk> chunks) {
+        File source = new File(filePath);
+        byte[] contentHash = hashFile(source);
+        if (contentHash == null) {
+            return;
+        }
+        int[] bounds = new int[chunks.size() * 2];
+        for (int i = 0; i < chunks.size(); i++) {
+            bounds[2 * i] = chunks.get(i).getStartOffset();
+            bounds[2 * i + 1] = chunks.get(i).getStartOffset() + chunks.get(i).getText().length();
+        }
+        write(filePath, source, contentHash, maxChars, chunkChars, new Extracted(text, bounds));
+        evictOverLimit();
+    }
+
+    public void remove(String filePath) {
+        entryFile(filePath).delete();
+    }
+
+    public void clear() {
+        for (File file : entryFiles()) {
+            file.delete();
+        }
+    }
+
+    /**
+     * Get summary of hit/miss/eviction counters
+     */
+    public String getStatsSummary() {
+        return String.format("Document text store: %d stamp hits, %d hash hits / %d misses, %d evictions",
+            stampHits.get(), hashHits.get(), misses.get(), evictions.get());
+    }
+
+    private void write(String filePath, File source, byte[] contentHash, int maxChars, int chunkChars,
+            Extracted extracted) {
+        File temp = null;
+        try {
+            temp = File.createTempFile("entry", ".tmp", storeDirectory);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeShort(FORMAT_VERSION);
+                out.writeUTF(filePath);
+                out.writeLong(source.length());
+                out.writeLong(source.lastModified());
+                out.write(contentHash);
+                out.writeInt(maxChars);
+                out.writeInt(chunkChars);
+                // writeUTF is limited to 64 KB
+                byte[] text = extracted.text.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(text.length);
+                out.write(text);
+                out.writeInt(extracted.chunkBounds.length);
+                for (int bound : extracted.chunkBounds) {
+                    out.writeInt(bound);
+                }
+            }
+            Files.move(temp.toPath(), entryFile(filePath).toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Failed to store extracted text for " + filePath + ": " + e.getMessage());
+            if (temp != null) {
+                temp.delete();
+            }
+        }
+    }
+
+    private Entry read(File file, String filePath) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readShort() != FORMAT_VERSION) {
+                file.delete();
+                return null;
+            }
+            // Hash collisions of the file name are resolved by the stored path
+            if (!filePath.equals(in.readUTF())) {
+                return null;
+            }
+            long size = in.readLong();
+            long lastModified = in.readLong();
+            byte[] contentHash = new byte[32];
+            in.readFully(contentHash);
+            int maxChars = in.readInt();
+            int chunkChars = in.readInt();
+            byte[] text = new byte[in.readInt()];
+            in.readFully(text);
+            int[] chunkBounds = new int[in.readInt()];
+            for (int i = 0; i < chunkBounds.length; i++) {
+                chunkBounds[i] = in.readInt();
+            }
+            String decoded = new String(text, StandardCharsets.UTF_8);
+            for (int i = 0; i < chunkBounds.length; i += 2) {
+                if (i + 1 == chunkBounds.length || chunkBounds[i] < 0 || chunkBounds[i] > chunkBounds[i + 1]
+                        || chunkBounds[i + 1] > decoded.length()) {
+                    throw new IOException("corrupt chunk bounds");
+                }
+            }
+            Extracted extracted = new Extracted(decoded, chunkBounds);
+            return new Entry(size, lastModified, contentHash, maxChars, chunkChars, extracted);
+        } catch (IOException | RuntimeException e) {
+            // Truncated or corrupt entry - drop it
+            file.delete();
+            return null;
+        }
+    }
+
+    /**
+     * Delete least recently used entries until the store fits its size limit
+     */
+    private synchronized void evictOverLimit() {
+        List<File> files = entryFiles();
+        long total = 0;
+        for (File file : files) {
+            total += file.length();
+        }
+        if (total <= maxBytes) {
+            return;
+        }
+        files.sort(Comparator.comparingLong(File::lastModified));
+        for (File file : files) {
+            if (total <= maxBytes) {
+                break;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                total -= length;
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private List<File> entryFiles() {
+        File[] files = storeDirectory.listFiles((dir, name) -> name.endsWith(FILE_EXTENSION));
+        return files != null ? new ArrayList<>(Arrays.asList(files)) : new ArrayList<>();
+    }
+
+    private File entryFile(String filePath) {
+        StringBuilder name = new StringBuilder(40);
+        byte[] pathHash = newDigest().digest(filePath.getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < 16; i++) {
+            name.append(String.format("%02x", pathHash[i]));
+        }
+        return new File(storeDirectory, name.append(FILE_EXTENSION).toString());
+    }
+
+    private static byte[] hashFile(File file) {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = new FileInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+            return digest.digest();
+        } catch (IOException e) {
+            System.err.println("Failed to hash " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Extracted text of a document with the [start, end) offsets of its chunks
+     */
+    public static final class Extracted {
+        private final String text;
+        private final int[] chunkBounds;
+
+        Extracted(String text, int[] chunkBounds) {
+            this.text = text;
+            this.chunkBounds = chunkBounds;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public List<DocumentChunk> getChunks(String documentPath) {
+            List<DocumentChunk> chunks = new ArrayList<>(chunkBounds.length / 2);
+            for (int i = 0; i + 1 < chunkBounds.length; i += 2) {
+                chunks.add(new DocumentChunk(documentPath, i / 2, chunkBounds[i],
+                    text.substring(chunkBounds[i], chunkBounds[i + 1])));
+            }
+            return chunks;
+        }
+    }
+
+    private static class Entry {
+        final long size;
+        final long lastModified;
+        final byte[] contentHash;
+        final int maxChars;
+        final int chunkChars;
+        final Extracted extracted;
+
+        Entry(long size, long lastModified, byte[] contentHash, int maxChars, int chunkChars, Extracted extracted) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.contentHash = contentHash;
+            this.maxChars = maxChars;
+            this.chunkChars = chunkChars;
+            this.extracted = extracted;
+        }
+    }
+}
@@ -43,12 +43,8 @@ public class EnhancedAutoModificationService {
             // Use system user automatically (no need to prompt)
             String userName = null; // Will use system user automatically
             
-            // Create specific prompt for auto-fix
-            String prompt = createAutoFixPrompt(originalCode);
-            
-            // Get AI response
-            ChatMessage response = chatService.sendMessage(prompt);
-            String fixedCode = extractCodeFromResponse(response.getContent());
+            // Get fixed code from AI
+            String fixedCode = generateFixedCode(originalCode);
             
             if (fixedCode != null && !fixedCode.trim().isEmpty()) {
                 
@@ -103,12 +99,8 @@ public class EnhancedAutoModificationService {
             // Use system user automatically (no need to prompt)
             String userName = null; // Will use system user automatically
             
-            // Create specific prompt for optimization
-            String prompt = createAutoOptimizePrompt(originalCode);
-            
-            // Get AI response
-            ChatMessage response = chatService.sendMessage(prompt);
-            String optimizedCode = extractCodeFromResponse(response.getContent());
+            // Get optimized code from AI
+            String optimizedCode = generateOptimizedCode(originalCode);
             
             if (optimizedCode != null && !optimizedCode.trim().isEmpty()) {
                 
@@ -306,6 +298,24 @@ public class EnhancedAutoModificationService {
                "Return only the corrected ABAP code without explanations:\n\n" + code;
     }
     
+    /**
+     * Ask the AI for corrected code without touching the editor
+     * @return Code between the outer ``` fences, the whole trimmed reply when it has none, or null for an empty reply
+     */
+    public String generateFixedCode(String originalCode) throws Exception {
+        ChatMessage response = chatService.sendMessage(createAutoFixPrompt(originalCode));
+        return extractCodeFromResponse(response.getContent());
+    }
+    
+    /**
+     * Ask the AI for optimized code without touching the editor
+     * @return Code between the outer ``` fences, the whole trimmed reply when it has none, or null for an empty reply
+     */
+    public String generateOptimizedCode(String originalCode) throws Exception {
+        ChatMessage response = chatService.sendMessage(createAutoOptimizePrompt(originalCode));
+        return extractCodeFromResponse(response.getContent());
+    }
+    
     /**
      * Create prompt for auto-optimize
      */
@@ -0,0 +1,153 @@
+package com.abap.assistant.services;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.HttpConnectionFactory;
+import org.apache.http.conn.ManagedHttpClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.ManagedHttpClientConnectionFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+
+import com.abap.assistant.Activator;
+import com.abap.assistant.utils.ConfigurationManager;
+
+/**
+ * Plugin-wide pooled HTTP client shared by every ChatGPTService instance
+ * Keeps connections to the OpenAI endpoint alive so requests skip the TCP+TLS handshake
+ */
+public class HttpClientPool {
+
+    private static final long MAX_KEEP_ALIVE_MILLIS = 60_000;
+    private static final int VALIDATE_AFTER_INACTIVITY_MILLIS = 2_000;
+
+    private static HttpClientPool standalonePool;
+
+    private final ConfigurationManager config;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong connectionsOpened = new AtomicLong();
+
+    public HttpClientPool(ConfigurationManager config) {
+        this.config = config;
+
+        Registry<ConnectionSocketFactory> socketFactories = RegistryBuilder.<ConnectionSocketFactory>create()
+            .register("http", PlainConnectionSocketFactory.getSocketFactory())
+            .register("https", SSLConnectionSocketFactory.getSocketFactory())
+            .build();
+
+        // Count physical connections so the reuse rate can be reported
+        HttpConnectionFactory<HttpRoute, ManagedHttpClientConnection> countingFactory =
+            (route, connectionConfig) -> {
+                connectionsOpened.incrementAndGet();
+                return ManagedHttpClientConnectionFactory.INSTANCE.create(route,
+                    connectionConfig != null ? connectionConfig : ConnectionConfig.DEFAULT);
+            };
+
+        this.connectionManager = new PoolingHttpClientConnectionManager(socketFactories, countingFactory);
+        connectionManager.setMaxTotal(config.getHttpMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(config.getHttpMaxConnectionsPerRoute());
+        connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY_MILLIS);
+
+        this.httpClient = HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setDefaultRequestConfig(createRequestConfig())
+            .setKeepAliveStrategy((response, context) -> {
+                long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                return serverKeepAlive > 0 ? Math.min(serverKeepAlive, MAX_KEEP_ALIVE_MILLIS) : MAX_KEEP_ALIVE_MILLIS;
+            })
+            .evictExpiredConnections()
+            .evictIdleConnections(config.getHttpIdleEvictionSeconds(), TimeUnit.SECONDS)
+            .build();
+    }
+
+    /**
+     * Get the shared pool - owned by the Activator, with a standalone fallback outside OSGi
+     */
+    public static synchronized HttpClientPool getShared() {
+        Activator activator = Activator.getDefault();
+        if (activator != null && activator.getHttpClientPool() != null) {
+            return activator.getHttpClientPool();
+        }
+        if (standalonePool == null) {
+            standalonePool = new HttpClientPool(ConfigurationManager.getInstance());
+        }
+        return standalonePool;
+    }
+
+    /**
+     * Get the pooled client - never close it, close the response instead
+     */
+    public CloseableHttpClient getClient() {
+        requestCount.incrementAndGet();
+        return httpClient;
+    }
+
+    /**
+     * Build request timeouts from current preferences so changes apply without restart
+     */
+    public RequestConfig createRequestConfig() {
+        return RequestConfig.custom()
+            .setConnectTimeout(config.getHttpConnectTimeoutMillis())
+            .setSocketTimeout(config.getHttpReadTimeoutMillis())
+            .setConnectionRequestTimeout(config.getHttpConnectTimeoutMillis())
+            .build();
+    }
+
+    public PoolStats getTotalStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getConnectionsOpened() {
+        return connectionsOpened.get();
+    }
+
+    /**
+     * Fraction of requests served by an already open connection
+     */
+    public double getReuseRate() {
+        long requests = requestCount.get();
+        if (requests == 0) {
+            return 0.0;
+        }
+        return Math.max(0.0, 1.0 - (double) connectionsOpened.get() / requests);
+    }
+
+    /**
+     * Get summary of pool usage
+     */
+    public String getStatsSummary() {
+        PoolStats stats = connectionManager.getTotalStats();
+        return String.format("HTTP pool: %d requests, %d connections opened, %.0f%% reused (leased %d, idle %d, max %d)",
+            requestCount.get(), connectionsOpened.get(), getReuseRate() * 100,
+            stats.getLeased(), stats.getAvailable(), stats.getMax());
+    }
+
+    /**
+     * Close the client and every pooled connection
+     */
+    public void shutdown() {
+        try {
+            httpClient.close();
+        } catch (Exception e) {
+            System.err.println("Error closing HTTP client: " + e.getMessage());
+        }
+        connectionManager.shutdown();
+    }
+}
@@ -0,0 +1,203 @@
+package com.abap.assistant.services;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
+
+import com.abap.assistant.models.CodeContext;
+import com.abap.assistant.parser.AbapParser;
+import com.abap.assistant.parser.AbapSyntaxTree;
+
+/**
+ * Syntax tree and analysis of an open ABAP document, kept current while the user types
+ * Edits are merged into one dirty range as they arrive; a short-delay job then re-tokenizes only the
+ * lines of that range and re-derives variables and dependencies from the updated tree
+ * Statements, blocks and the analysis are still rebuilt for the whole file on every update,
+ * see {@link AbapParser#reparse}
+ */
+public class LiveCodeModel implements IDocumentListener {
+
+    // Typing bursts are applied together once the user pauses
+    private static final long UPDATE_DELAY_MS = 150;
+    // Reads of the text retried while the UI thread is applying an edit
+    private static final int READ_ATTEMPTS = 3;
+
+    private final IDocument document;
+    private final String fileName;
+    private final String path;
+    private final LiveCodeModelManager manager;
+    private final Job updateJob;
+
+    // Dirty range since the last update: start offset and length of the untouched tail
+    private int dirtyStart = -1;
+    private int cleanSuffixLength;
+    // Edits announced by documentAboutToBeChanged and completed by documentChanged
+    private long startedEdits;
+    private long editCount;
+
+    private AbapSyntaxTree tree;
+    private CodeContext context;
+    private volatile long lastUpdateNanos;
+
+    LiveCodeModel(IDocument document, String fileName, IFile file, LiveCodeModelManager manager) {
+        this.document = document;
+        this.fileName = fileName;
+        this.path = file != null ? file.getFullPath().toString() : fileName;
+        this.manager = manager;
+        this.updateJob = new Job("Updating ABAP model: " + fileName) {
+            @Override
+            protected IStatus run(IProgressMonitor monitor) {
+                update();
+                return Status.OK_STATUS;
+            }
+        };
+        updateJob.setSystem(true);
+    }
+
+    void connect() {
+        document.addDocumentListener(this);
+        updateJob.schedule();
+    }
+
+    void disconnect() {
+        document.removeDocumentListener(this);
+        updateJob.cancel();
+    }
+
+    public IDocument getDocument() {
+        return document;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * Full workspace path, or the editor input name for files outside the workspace
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Tree of the current document text, applying pending edits first
+     */
+    public AbapSyntaxTree getTree() {
+        update();
+        synchronized (this) {
+            return tree;
+        }
+    }
+
+    /**
+     * Analysis of the current document text, applying pending edits first
+     */
+    public CodeContext getContext() {
+        update();
+        synchronized (this) {
+            return context;
+        }
+    }
+
+    /**
+     * Nanoseconds the last update took to reparse and re-analyze
+     */
+    public long getLastUpdateNanos() {
+        return lastUpdateNanos;
+    }
+
+    @Override
+    public void documentAboutToBeChanged(DocumentEvent event) {
+        synchronized (this) {
+            startedEdits++;
+        }
+    }
+
+    @Override
+    public void documentChanged(DocumentEvent event) {
+        int insertedLength = event.getText() != null ? event.getText().length() : 0;
+        int suffix = event.getDocument().getLength() - (event.getOffset() + insertedLength);
+        synchronized (this) {
+            // Offsets before the dirty start and lengths measured from the end survive later edits unchanged
+            if (dirtyStart < 0) {
+                dirtyStart = event.getOffset();
+                cleanSuffixLength = suffix;
+            } else {
+                dirtyStart = Math.min(dirtyStart, event.getOffset());
+                cleanSuffixLength = Math.min(cleanSuffixLength, suffix);
+            }
+            editCount++;
+        }
+        updateJob.cancel();
+        updateJob.schedule(UPDATE_DELAY_MS);
+    }
+
+    /**
+     * Bring tree and analysis up to date with the document; a no-op when nothing changed
+     */
+    private void update() {
+        long seenEdits;
+        int start;
+        int suffix;
+        AbapSyntaxTree previous;
+        String source;
+        boolean consistent;
+        long startNanos = System.nanoTime();
+        int attempts = 0;
+        do {
+            synchronized (this) {
+                if (tree != null && dirtyStart < 0) {
+                    return;
+                }
+                seenEdits = editCount;
+                start = dirtyStart;
+                suffix = cleanSuffixLength;
+                previous = tree;
+            }
+            source = document.get();
+            synchronized (this) {
+                // An edit begun by now may be missing from the text, or half applied to it, while the
+                // dirty range does not describe it yet
+                consistent = startedEdits == seenEdits;
+            }
+        } while (!consistent && ++attempts < READ_ATTEMPTS);
+
+        AbapParser parser = AbapParser.getInstance();
+        AbapSyntaxTree updated;
+        if (!consistent) {
+            updated = parser.parse(source); // Not cached: the text may not be any version of the document
+        } else if (previous == null || start < 0) {
+            updated = parser.getTree(source);
+        } else {
+            int oldLength = previous.getSource().length();
+            updated = parser.reparse(previous, source, start,
+                oldLength - start - suffix, source.length() - start - suffix);
+            parser.register(updated);
+        }
+        CodeContext analyzed = CodeAnalysisService.getInstance().analyzeTree(fileName, updated);
+        analyzed.setFilePath(path);
+
+        synchronized (this) {
+            if (tree != previous) {
+                return; // A concurrent update got there first
+            }
+            tree = updated;
+            context = analyzed;
+            if (!consistent) {
+                // Re-lex the whole text next time, since the lines around the racing edit are unknown
+                dirtyStart = 0;
+                cleanSuffixLength = 0;
+            } else if (editCount == seenEdits) {
+                dirtyStart = -1;
+            }
+            // Otherwise the edits came after the read, and the merged range still covers them
+        }
+        lastUpdateNanos = System.nanoTime() - startNanos;
+        manager.modelUpdated(this);
+    }
+}
@@ -0,0 +1,204 @@
+package com.abap.assistant.services;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.ui.IEditorInput;
+import org.eclipse.ui.IEditorReference;
+import org.eclipse.ui.IPartListener2;
+import org.eclipse.ui.IWorkbench;
+import org.eclipse.ui.IWorkbenchPage;
+import org.eclipse.ui.IWorkbenchPart;
+import org.eclipse.ui.IWorkbenchPartReference;
+import org.eclipse.ui.IWindowListener;
+import org.eclipse.ui.IWorkbenchWindow;
+import org.eclipse.ui.texteditor.ITextEditor;
+
+/**
+ * Keeps a {@link LiveCodeModel} attached to the document of every open ABAP text editor
+ * Several editors on one document share its model; the model is dropped with the last of them
+ */
+public class LiveCodeModelManager implements IPartListener2, IWindowListener {
+
+    private static LiveCodeModelManager instance;
+
+    private final Map<IDocument, LiveCodeModel> models = new IdentityHashMap<>();
+    private final Map<IDocument, Integer> editorCounts = new IdentityHashMap<>();
+    private final Map<IWorkbenchPartReference, IDocument> editorDocuments = new IdentityHashMap<>();
+    private final List<Consumer<LiveCodeModel>> listeners = new CopyOnWriteArrayList<>();
+    private IWorkbench workbench;
+
+    public static synchronized LiveCodeModelManager getInstance() {
+        if (instance == null) {
+            instance = new LiveCodeModelManager();
+        }
+        return instance;
+    }
+
+    /**
+     * Start tracking editors of every workbench window; must run on the UI thread
+     */
+    public synchronized void start(IWorkbench workbench) {
+        if (this.workbench != null) {
+            return;
+        }
+        this.workbench = workbench;
+        workbench.addWindowListener(this);
+        for (IWorkbenchWindow window : workbench.getWorkbenchWindows()) {
+            windowOpened(window);
+        }
+    }
+
+    /**
+     * Stop tracking and detach every model from its document
+     */
+    public synchronized void stop() {
+        if (workbench == null) {
+            return;
+        }
+        workbench.removeWindowListener(this);
+        for (IWorkbenchWindow window : workbench.getWorkbenchWindows()) {
+            window.getPartService().removePartListener(this);
+        }
+        for (LiveCodeModel model : models.values()) {
+            model.disconnect();
+        }
+        models.clear();
+        editorCounts.clear();
+        editorDocuments.clear();
+        workbench = null;
+    }
+
+    /**
+     * Live model of the document if an open ABAP editor shows it
+     */
+    public synchronized LiveCodeModel getModel(IDocument document) {
+        return document != null ? models.get(document) : null;
+    }
+
+    /**
+     * Called from a background job after each model update
+     */
+    public void addListener(Consumer<LiveCodeModel> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<LiveCodeModel> listener) {
+        listeners.remove(listener);
+    }
+
+    void modelUpdated(LiveCodeModel model) {
+        for (Consumer<LiveCodeModel> listener : listeners) {
+            try {
+                listener.accept(model);
+            } catch (RuntimeException e) {
+                System.err.println("Live model listener failed: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void windowOpened(IWorkbenchWindow window) {
+        window.getPartService().addPartListener(this);
+        for (IWorkbenchPage page : window.getPages()) {
+            for (IEditorReference reference : page.getEditorReferences()) {
+                // Restored editors that were never shown have no part yet; partOpened follows when they are
+                IWorkbenchPart part = reference.getPart(false);
+                if (part != null) {
+                    attach(reference, part);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void windowClosed(IWorkbenchWindow window) {
+        window.getPartService().removePartListener(this);
+    }
+
+    @Override
+    public void windowActivated(IWorkbenchWindow window) {
+    }
+
+    @Override
+    public void windowDeactivated(IWorkbenchWindow window) {
+    }
+
+    @Override
+    public void partOpened(IWorkbenchPartReference partRef) {
+        attach(partRef, partRef.getPart(false));
+    }
+
+    @Override
+    public void partClosed(IWorkbenchPartReference partRef) {
+        detach(partRef);
+    }
+
+    @Override
+    public void partInputChanged(IWorkbenchPartReference partRef) {
+        detach(partRef);
+        attach(partRef, partRef.getPart(false));
+    }
+
+    @Override
+    public void partActivated(IWorkbenchPartReference partRef) {
+    }
+
+    @Override
+    public void partBroughtToTop(IWorkbenchPartReference partRef) {
+    }
+
+    @Override
+    public void partDeactivated(IWorkbenchPartReference partRef) {
+    }
+
+    @Override
+    public void partHidden(IWorkbenchPartReference partRef) {
+    }
+
+    @Override
+    public void partVisible(IWorkbenchPartReference partRef) {
+    }
+
+    private synchronized void attach(IWorkbenchPartReference partRef, IWorkbenchPart part) {
+        if (!(part instanceof ITextEditor) || editorDocuments.containsKey(partRef)) {
+            return;
+        }
+        ITextEditor editor = (ITextEditor) part;
+        IEditorInput input = editor.getEditorInput();
+        if (input == null || !CodeAnalysisService.isABAPFile(input.getName()) || editor.getDocumentProvider() == null) {
+            return;
+        }
+        IDocument document = editor.getDocumentProvider().getDocument(input);
+        if (document == null) {
+            return;
+        }
+
+        editorDocuments.put(partRef, document);
+        editorCounts.merge(document, 1, Integer::sum);
+        if (!models.containsKey(document)) {
+            LiveCodeModel model = new LiveCodeModel(document, input.getName(), input.getAdapter(IFile.class), this);
+            models.put(document, model);
+            model.connect();
+        }
+    }
+
+    private synchronized void detach(IWorkbenchPartReference partRef) {
+        IDocument document = editorDocuments.remove(partRef);
+        if (document == null) {
+            return;
+        }
+        if (editorCounts.merge(document, -1, Integer::sum) <= 0) {
+            editorCounts.remove(document);
+            LiveCodeModel model = models.remove(document);
+            if (model != null) {
+                model.disconnect();
+            }
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package com.abap.assistant.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import com.abap.assistant.models.CodeContext;
+
+/**
+ * Workspace-wide index of analyzed ABAP files, keyed by full workspace path
+ * Built once by walking the open projects; afterwards resource deltas only mark files dirty,
+ * and the next read re-analyzes just those, so queries cost what changed rather than workspace size
+ */
+public class ProjectCodeIndex implements IResourceChangeListener {
+
+    private static final int CHANGE_FLAGS = IResourceDelta.CONTENT | IResourceDelta.REPLACED | IResourceDelta.ENCODING;
+
+    // Below this many dirty files the thread hand-off costs more than it saves
+    private static final int PARALLEL_THRESHOLD = 16;
+    // Workspace reads are I/O bound; more readers than this just contend on the disk and resource tree
+    private static final int IO_THREADS = 4;
+    // Files read but not yet analyzed - bounds the memory held by the I/O stage
+    private static final int MAX_READ_AHEAD = 64;
+    private static final long PROGRESS_INTERVAL_MS = 250;
+
+    private final CodeAnalysisService analysisService;
+    private final Map<String, CodeContext> contexts = new ConcurrentHashMap<>();
+    private final Map<String, IFile> dirtyFiles = new ConcurrentHashMap<>();
+    private volatile boolean built;
+    private IWorkspace listeningWorkspace;
+    private volatile String lastScanSummary = "No scan yet";
+
+    ProjectCodeIndex(CodeAnalysisService analysisService) {
+        this.analysisService = analysisService;
+    }
+
+    /**
+     * Current analysis of every ABAP file in open projects, bringing dirty entries up to date first
+     */
+    public Map<String, CodeContext> getContexts() {
+        return getContexts(new NullProgressMonitor());
+    }
+
+    /**
+     * As {@link #getContexts()}, reporting files/sec through the monitor's sub-task and stopping on cancel
+     * Files left unanalyzed by a cancelled scan stay dirty for the next read
+     */
+    public synchronized Map<String, CodeContext> getContexts(IProgressMonitor monitor) {
+        if (!built) {
+            build();
+        }
+        List<IFile> files = new ArrayList<>(dirtyFiles.values());
+        if (files.size() >= PARALLEL_THRESHOLD) {
+            refreshInParallel(files, monitor);
+        } else {
+            refreshSequentially(files);
+        }
+        return Collections.unmodifiableMap(contexts);
+    }
+
+    /**
+     * Number of indexed files, without analyzing anything that is still pending
+     */
+    public int size() {
+        return contexts.size();
+    }
+
+    public int getPendingCount() {
+        return dirtyFiles.size();
+    }
+
+    /**
+     * Files, elapsed time and throughput of the last re-analysis
+     */
+    public String getLastScanSummary() {
+        return lastScanSummary;
+    }
+
+    /**
+     * Drop the index and stop listening; the next read walks the workspace again
+     */
+    public synchronized void dispose() {
+        if (listeningWorkspace != null) {
+            listeningWorkspace.removeResourceChangeListener(this);
+            listeningWorkspace = null;
+        }
+        contexts.clear();
+        dirtyFiles.clear();
+        built = false;
+    }
+
+    @Override
+    public void resourceChanged(IResourceChangeEvent event) {
+        IResourceDelta delta = event.getDelta();
+        if (delta == null) {
+            return;
+        }
+        try {
+            // Runs on the thread that changed the workspace - only record what to do, analyze lazily
+            delta.accept(this::visitDelta);
+        } catch (CoreException e) {
+            System.err.println("Error processing resource delta: " + e.getMessage());
+        }
+    }
+
+    private boolean visitDelta(IResourceDelta delta) {
+        IResource resource = delta.getResource();
+        int kind = delta.getKind();
+
+        if (resource.getType() == IResource.FILE) {
+            if (!CodeAnalysisService.isABAPFile(resource.getName())) {
+                return false;
+            }
+            String path = resource.getFullPath().toString();
+            if (kind == IResourceDelta.REMOVED) {
+                dirtyFiles.remove(path);
+                contexts.remove(path);
+                analysisService.forgetStored(path);
+            } else if (kind == IResourceDelta.ADDED
+                    || (kind == IResourceDelta.CHANGED && (delta.getFlags() & CHANGE_FLAGS) != 0)) {
+                dirtyFiles.put(path, (IFile) resource);
+            }
+            return false;
+        }
+
+        if (kind == IResourceDelta.REMOVED) {
+            removeUnder(resource);
+            return false;
+        }
+        if (resource.getType() == IResource.PROJECT && (delta.getFlags() & IResourceDelta.OPEN) != 0) {
+            IProject project = (IProject) resource;
+            if (project.isOpen()) {
+                markAllDirty(project);
+            } else {
+                removeUnder(project);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    private void build() {
+        IWorkspace workspace = ResourcesPlugin.getWorkspace();
+        // Listen before walking so nothing changed during the walk is missed
+        if (listeningWorkspace == null) {
+            workspace.addResourceChangeListener(this, IResourceChangeEvent.POST_CHANGE);
+            listeningWorkspace = workspace;
+        }
+        for (IProject project : workspace.getRoot().getProjects()) {
+            if (project.isOpen()) {
+                markAllDirty(project);
+            }
+        }
+        built = true;
+    }
+
+    private void refreshSequentially(List<IFile> files) {
+        long startNanos = System.nanoTime();
+        for (IFile file : files) {
+            long stamp = claim(file);
+            if (restoreStored(file, stamp)) {
+                continue;
+            }
+            String content = readIfAccessible(file);
+            if (content != null) {
+                contexts.put(file.getFullPath().toString(),
+                    analysisService.analyzeCached(file.getFullPath().toString(), file.getName(), content, stamp));
+            }
+        }
+        recordScan(files.size(), startNanos, false);
+    }
+
+    /**
+     * Two stages: a small fixed pool reads files, a work-stealing pool sized to the cores analyzes them
+     * A read-ahead semaphore blocks readers when analysis falls behind; the caller thread only reports progress
+     */
+    private void refreshInParallel(List<IFile> files, IProgressMonitor monitor) {
+        long startNanos = System.nanoTime();
+        int total = files.size();
+        ExecutorService readers = Executors.newFixedThreadPool(IO_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "ABAP Assistant index reader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ForkJoinPool analyzers = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        Semaphore readAhead = new Semaphore(MAX_READ_AHEAD);
+        BlockingQueue<IFile> finished = new LinkedBlockingQueue<>();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        AtomicInteger analyzed = new AtomicInteger();
+
+        try {
+            for (IFile file : files) {
+                readers.execute(() -> {
+                    try {
+                        readAhead.acquire();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        finished.add(file);
+                        return;
+                    }
+                    String content = null;
+                    long stamp = 0;
+                    // Cancelled files are left unclaimed, so they stay dirty
+                    if (!cancelled.get()) {
+                        stamp = claim(file);
+                        if (restoreStored(file, stamp)) {
+                            analyzed.incrementAndGet();
+                        } else {
+                            content = readIfAccessible(file);
+                        }
+                    }
+                    if (content == null) {
+                        readAhead.release();
+                        finished.add(file);
+                        return;
+                    }
+                    String readContent = content;
+                    long readStamp = stamp;
+                    analyzers.execute(() -> {
+                        try {
+                            if (cancelled.get()) {
+                                dirtyFiles.putIfAbsent(file.getFullPath().toString(), file);
+                            } else {
+                                contexts.put(file.getFullPath().toString(), analysisService.analyzeCached(
+                                    file.getFullPath().toString(), file.getName(), readContent, readStamp));
+                                analyzed.incrementAndGet();
+                            }
+                        } catch (RuntimeException e) {
+                            System.err.println("Error analyzing " + file.getFullPath() + ": " + e.getMessage());
+                        } finally {
+                            readAhead.release();
+                            finished.add(file);
+                        }
+                    });
+                });
+            }
+
+            int done = 0;
+            long lastReport = 0;
+            while (done < total) {
+                if (finished.poll(PROGRESS_INTERVAL_MS, TimeUnit.MILLISECONDS) != null) {
+                    done++;
+                    done += finished.drainTo(new ArrayList<>());
+                }
+                if (monitor.isCanceled() && cancelled.compareAndSet(false, true)) {
+                    System.out.println("ABAP index scan cancelled after " + analyzed.get() + "/" + total + " files");
+                }
+                long now = System.nanoTime();
+                if (now - lastReport >= TimeUnit.MILLISECONDS.toNanos(PROGRESS_INTERVAL_MS)) {
+                    lastReport = now;
+                    monitor.subTask(String.format("Indexed %d/%d ABAP files (%.0f files/sec)",
+                        analyzed.get(), total, filesPerSecond(analyzed.get(), startNanos)));
+                }
+            }
+        } catch (InterruptedException e) {
+            cancelled.set(true);
+            Thread.currentThread().interrupt();
+        } finally {
+            readers.shutdownNow();
+            analyzers.shutdown();
+        }
+        recordScan(analyzed.get(), startNanos, true);
+    }
+
+    /**
+     * Takes the persisted analysis when the file is unchanged since it was stored, without reading it
+     */
+    private boolean restoreStored(IFile file, long stamp) {
+        CodeContext stored = analysisService.lookupStored(file, stamp);
+        if (stored == null) {
+            return false;
+        }
+        contexts.put(file.getFullPath().toString(), stored);
+        return true;
+    }
+
+    /**
+     * Clears the dirty mark, then takes the stamp the analysis will be stored under
+     * In this order a change arriving meanwhile marks the file dirty again instead of being lost
+     */
+    private long claim(IFile file) {
+        dirtyFiles.remove(file.getFullPath().toString(), file);
+        return file.getModificationStamp();
+    }
+
+    /**
+     * Reads the file; null when it no longer exists
+     */
+    private String readIfAccessible(IFile file) {
+        String path = file.getFullPath().toString();
+        if (!file.isAccessible()) {
+            contexts.remove(path);
+            return null;
+        }
+        return analysisService.readFileContent(file);
+    }
+
+    private void recordScan(int files, long startNanos, boolean parallel) {
+        if (files == 0) {
+            return;
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        lastScanSummary = String.format("%s scan: %d files in %d ms (%.0f files/sec), %d indexed",
+            parallel ? "Parallel" : "Sequential", files, elapsedMs, filesPerSecond(files, startNanos), contexts.size());
+        if (parallel) {
+            System.out.println("ABAP index - " + lastScanSummary);
+        }
+    }
+
+    private static double filesPerSecond(int files, long startNanos) {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        return seconds > 0 ? files / seconds : 0;
+    }
+
+    private void markAllDirty(IContainer container) {
+        try {
+            container.accept(proxy -> {
+                if (proxy.getType() == IResource.FILE) {
+                    if (CodeAnalysisService.isABAPFile(proxy.getName())) {
+                        IFile file = (IFile) proxy.requestResource();
+                        dirtyFiles.put(file.getFullPath().toString(), file);
+                    }
+                    return false;
+                }
+                return true;
+            }, IResource.NONE);
+        } catch (CoreException e) {
+            System.err.println("Error indexing " + container.getName() + ": " + e.getMessage());
+        }
+    }
+
+    private void removeUnder(IResource container) {
+        String prefix = container.getFullPath().addTrailingSeparator().toString();
+        contexts.keySet().removeIf(path -> path.startsWith(prefix));
+        dirtyFiles.keySet().removeIf(path -> path.startsWith(prefix));
+    }
+}
@@ -0,0 +1,112 @@
+package com.abap.assistant.services;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.abap.assistant.utils.ConfigurationManager;
+
+/**
+ * Client-side token bucket shared by every ChatGPTService instance
+ * Spaces out requests so the plugin stays below the organisation's OpenAI rate limit,
+ * and pauses all callers when the server reports the limit as exhausted
+ */
+public class RequestRateLimiter {
+
+    private static final long NANOS_PER_MINUTE = 60_000_000_000L;
+
+    private static RequestRateLimiter shared;
+
+    private final ConfigurationManager config;
+    private double availablePermits = -1; // Bucket starts full on first use
+    private long lastRefillNanos;
+    private long pausedUntilMillis;
+
+    private final AtomicLong throttledRequests = new AtomicLong();
+    private final AtomicLong throttledMillis = new AtomicLong();
+
+    public RequestRateLimiter(ConfigurationManager config) {
+        this.config = config;
+    }
+
+    public static synchronized RequestRateLimiter getShared() {
+        if (shared == null) {
+            shared = new RequestRateLimiter(ConfigurationManager.getInstance());
+        }
+        return shared;
+    }
+
+    /**
+     * Sleeps on behalf of the limiter so waits can be cancelled by the caller
+     */
+    @FunctionalInterface
+    public interface Sleeper {
+        void sleep(long millis) throws InterruptedException;
+    }
+
+    /**
+     * Block until a permit is available
+     */
+    public void acquire(Sleeper sleeper) throws InterruptedException {
+        boolean throttled = false;
+        long waitedMillis = 0;
+        long wait;
+        while ((wait = tryReserve()) > 0) {
+            throttled = true;
+            sleeper.sleep(wait);
+            waitedMillis += wait;
+        }
+        if (throttled) {
+            throttledRequests.incrementAndGet();
+            throttledMillis.addAndGet(waitedMillis);
+        }
+    }
+
+    /**
+     * Take a permit if one is available
+     * @return 0 when taken, otherwise milliseconds until the next attempt can succeed
+     */
+    private synchronized long tryReserve() {
+        long pause = pausedUntilMillis - System.currentTimeMillis();
+        if (pause > 0) {
+            return pause;
+        }
+
+        int perMinute = config.getRateLimitRequestsPerMinute();
+        if (perMinute <= 0) {
+            return 0; // Limiter disabled
+        }
+        int burst = Math.max(1, config.getRateLimitBurst());
+
+        long now = System.nanoTime();
+        if (availablePermits < 0) {
+            availablePermits = burst;
+        } else {
+            availablePermits = Math.min(burst,
+                availablePermits + (double) (now - lastRefillNanos) * perMinute / NANOS_PER_MINUTE);
+        }
+        lastRefillNanos = now;
+
+        if (availablePermits >= 1) {
+            availablePermits -= 1;
+            return 0;
+        }
+        double missing = 1 - availablePermits;
+        return Math.max(1, (long) Math.ceil(missing * NANOS_PER_MINUTE / perMinute / 1_000_000));
+    }
+
+    /**
+     * Hold back every caller until the server-side window resets
+     */
+    public synchronized void pauseFor(long millis) {
+        if (millis > 0) {
+            pausedUntilMillis = Math.max(pausedUntilMillis, System.currentTimeMillis() + millis);
+        }
+    }
+
+    /**
+     * Get summary of client-side throttling
+     */
+    public String getStatsSummary() {
+        return String.format("Rate limiter: %d requests throttled, %.1fs waited",
+            throttledRequests.get(), throttledMillis.get() / 1000.0);
+    }
+}
@@ -0,0 +1,284 @@
+package com.abap.assistant.services;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import com.abap.assistant.Activator;
+import com.abap.assistant.utils.ConfigurationManager;
+
+/**
+ * Content-addressed cache of ChatGPT responses for deterministic prompts
+ * Two tiers: in-memory LRU and size-capped on-disk store under the plugin state location
+ */
+public class ResponseCache {
+
+    private static final String CACHE_DIRECTORY = "response-cache";
+    private static final String FILE_EXTENSION = ".json";
+    private static final int MEMORY_ENTRIES = 128;
+
+    private static ResponseCache instance;
+
+    private final ConfigurationManager config;
+    private final File cacheDirectory;
+    private final Map<String, CachedResponse> memoryCache;
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private long diskBytes = -1; // Computed lazily
+
+    public ResponseCache(ConfigurationManager config, File cacheDirectory) {
+        this.config = config;
+        this.cacheDirectory = cacheDirectory;
+        this.memoryCache = new LinkedHashMap<String, CachedResponse>(MEMORY_ENTRIES, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > MEMORY_ENTRIES;
+            }
+        };
+    }
+
+    public static synchronized ResponseCache getInstance() {
+        if (instance == null) {
+            instance = new ResponseCache(ConfigurationManager.getInstance(),
+                Activator.getStateDirectory(CACHE_DIRECTORY));
+        }
+        return instance;
+    }
+
+    /**
+     * Responses are only reused when sampling is deterministic
+     */
+    public boolean isApplicable(double temperature) {
+        return config.isResponseCacheEnabled() && temperature == 0.0;
+    }
+
+    /**
+     * Build cache key from model and normalized messages of a request body
+     */
+    public static String computeKey(JSONObject requestBody) {
+        StringBuilder keySource = new StringBuilder();
+        keySource.append(requestBody.optString("model")).append('\n');
+        keySource.append(requestBody.optInt("max_tokens")).append('\n');
+
+        JSONArray messages = requestBody.getJSONArray("messages");
+        for (int i = 0; i < messages.length(); i++) {
+            JSONObject message = messages.getJSONObject(i);
+            keySource.append(message.optString("role")).append('\u0000');
+            keySource.append(normalize(message.optString("content"))).append('\u0001');
+        }
+        return sha256(keySource.toString());
+    }
+
+    /**
+     * Look up a response - memory first, then disk (promoted to memory on hit)
+     */
+    public String get(String key) {
+        long ttlMillis = TimeUnit.HOURS.toMillis(config.getResponseCacheTtlHours());
+
+        synchronized (memoryCache) {
+            CachedResponse cached = memoryCache.get(key);
+            if (cached != null) {
+                if (!cached.isExpired(ttlMillis)) {
+                    memoryHits.incrementAndGet();
+                    return cached.content;
+                }
+                memoryCache.remove(key);
+            }
+        }
+
+        CachedResponse fromDisk = readFromDisk(key, ttlMillis);
+        if (fromDisk != null) {
+            synchronized (memoryCache) {
+                memoryCache.put(key, fromDisk);
+            }
+            diskHits.incrementAndGet();
+            return fromDisk.content;
+        }
+
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Store a response in both tiers
+     */
+    public void put(String key, String content) {
+        CachedResponse response = new CachedResponse(content, System.currentTimeMillis());
+        synchronized (memoryCache) {
+            memoryCache.put(key, response);
+        }
+        writeToDisk(key, response);
+    }
+
+    private CachedResponse readFromDisk(String key, long ttlMillis) {
+        File file = new File(cacheDirectory, key + FILE_EXTENSION);
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            JSONObject json = new JSONObject(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+            CachedResponse cached = new CachedResponse(json.getString("content"), json.getLong("created"));
+            if (cached.isExpired(ttlMillis)) {
+                deleteFile(file);
+                return null;
+            }
+            // Touch so size-based eviction keeps recently used entries
+            file.setLastModified(System.currentTimeMillis());
+            return cached;
+        } catch (Exception e) {
+            // Corrupt entry - drop it
+            deleteFile(file);
+            return null;
+        }
+    }
+
+    private synchronized void writeToDisk(String key, CachedResponse response) {
+        try {
+            long total = currentDiskBytes();
+            JSONObject json = new JSONObject();
+            json.put("created", response.created);
+            json.put("content", response.content);
+            byte[] bytes = json.toString().getBytes(StandardCharsets.UTF_8);
+
+            File file = new File(cacheDirectory, key + FILE_EXTENSION);
+            File temp = new File(cacheDirectory, key + ".tmp");
+            Files.write(temp.toPath(), bytes);
+            long previous = file.isFile() ? file.length() : 0;
+            if (file.exists()) {
+                deleteFile(file);
+            }
+            if (!temp.renameTo(file)) {
+                deleteFile(temp);
+                return;
+            }
+
+            diskBytes = total - previous + bytes.length;
+            enforceDiskLimit();
+        } catch (IOException e) {
+            System.err.println("Failed to write response cache entry: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Delete least recently used files until the disk tier fits its size cap
+     */
+    private void enforceDiskLimit() {
+        long maxBytes = config.getResponseCacheMaxDiskMB() * 1024L * 1024L;
+        if (diskBytes <= maxBytes) {
+            return;
+        }
+
+        File[] files = listCacheFiles();
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File file : files) {
+            if (diskBytes <= maxBytes) {
+                break;
+            }
+            long length = file.length();
+            if (deleteFile(file)) {
+                diskBytes -= length;
+            }
+        }
+    }
+
+    private long currentDiskBytes() {
+        if (diskBytes < 0) {
+            long total = 0;
+            for (File file : listCacheFiles()) {
+                total += file.length();
+            }
+            diskBytes = total;
+        }
+        return diskBytes;
+    }
+
+    private File[] listCacheFiles() {
+        File[] files = cacheDirectory.listFiles((dir, name) -> name.endsWith(FILE_EXTENSION));
+        return files != null ? files : new File[0];
+    }
+
+    private boolean deleteFile(File file) {
+        try {
+            return Files.deleteIfExists(file.toPath());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Clear both tiers
+     */
+    public synchronized void clear() {
+        synchronized (memoryCache) {
+            memoryCache.clear();
+        }
+        for (File file : listCacheFiles()) {
+            deleteFile(file);
+        }
+        diskBytes = 0;
+    }
+
+    public long getHits() {
+        return memoryHits.get() + diskHits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Get summary of hit/miss counters
+     */
+    public String getStatsSummary() {
+        return String.format("Cache: %d hits (%d mem, %d disk) / %d misses",
+            getHits(), memoryHits.get(), diskHits.get(), misses.get());
+    }
+
+    /**
+     * Whitespace differences must not defeat the cache
+     */
+    private static String normalize(String content) {
+        return content.replace("\r\n", "\n").replaceAll("[ \t]+\n", "\n").trim();
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static class CachedResponse {
+        final String content;
+        final long created;
+
+        CachedResponse(String content, long created) {
+            this.content = content;
+            this.created = created;
+        }
+
+        boolean isExpired(long ttlMillis) {
+            return System.currentTimeMillis() - created > ttlMillis;
+        }
+    }
+}
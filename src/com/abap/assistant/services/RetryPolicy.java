@@ -0,0 +1,193 @@
+package com.abap.assistant.services;
+
+import java.net.ConnectException;
+import java.util.Date;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.conn.ConnectTimeoutException;
+
+import com.abap.assistant.utils.ConfigurationManager;
+
+/**
+ * Decides whether a failed OpenAI call is retried and how long to wait first
+ * Only failures where the API produced no completion are retried, so a retry never bills a prompt twice
+ */
+public class RetryPolicy {
+
+    private static final Pattern DURATION_PART = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|h|m|s)");
+    private static final long SERVER_DELAY_JITTER_MILLIS = 250;
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMillis = Math.max(1, baseDelayMillis);
+        this.maxDelayMillis = Math.max(this.baseDelayMillis, maxDelayMillis);
+    }
+
+    public static RetryPolicy fromConfig(ConfigurationManager config) {
+        return new RetryPolicy(config.getRetryMaxAttempts(), config.getRetryBaseDelayMillis(),
+            config.getRetryMaxDelayMillis());
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Delay before the next attempt, or -1 when the failure must not be retried
+     * @param attempt Number of the attempt that just failed (1-based)
+     */
+    public long getRetryDelayMillis(int attempt, Exception failure) {
+        if (attempt >= maxAttempts) {
+            return -1;
+        }
+
+        if (failure instanceof ApiException) {
+            ApiException apiError = (ApiException) failure;
+            if (!isRetryableStatus(apiError.getStatusCode())) {
+                return -1;
+            }
+            long serverDelay = apiError.getRetryAfterMillis();
+            if (serverDelay >= 0) {
+                // The server knows when capacity frees up - a wait beyond our cap is reported instead of slept
+                if (serverDelay > maxDelayMillis) {
+                    return -1;
+                }
+                return serverDelay + ThreadLocalRandom.current().nextLong(SERVER_DELAY_JITTER_MILLIS);
+            }
+            return getBackoffMillis(attempt);
+        }
+
+        if (isConnectionFailure(failure)) {
+            return getBackoffMillis(attempt);
+        }
+        return -1;
+    }
+
+    /**
+     * Exponential backoff with equal jitter: half fixed, half random
+     */
+    long getBackoffMillis(int attempt) {
+        long exponential = baseDelayMillis << Math.min(attempt - 1, 20);
+        long capped = Math.min(maxDelayMillis, exponential);
+        long half = capped / 2;
+        return half + ThreadLocalRandom.current().nextLong(capped - half + 1);
+    }
+
+    /**
+     * Rate limits, server errors and gateway failures are transient
+     */
+    public static boolean isRetryableStatus(int statusCode) {
+        return statusCode == 429 || statusCode == 500 || statusCode == 502
+            || statusCode == 503 || statusCode == 504;
+    }
+
+    /**
+     * Failures that happen before the API could have processed the request
+     */
+    static boolean isConnectionFailure(Exception failure) {
+        return failure instanceof ConnectException
+            || failure instanceof ConnectTimeoutException
+            || failure instanceof NoHttpResponseException; // Stale pooled connection closed by the server
+    }
+
+    /**
+     * Read the server's wait hint: Retry-After (seconds or HTTP date), retry-after-ms,
+     * or the reset time of an exhausted x-ratelimit-* window
+     * @return Milliseconds to wait, or -1 when the response carries no hint
+     */
+    public static long parseRetryAfterMillis(HttpResponse response) {
+        Long retryAfterMs = parseLong(headerValue(response, "retry-after-ms"));
+        if (retryAfterMs != null) {
+            return Math.max(0, retryAfterMs);
+        }
+
+        String retryAfter = headerValue(response, "Retry-After");
+        if (retryAfter != null) {
+            Long seconds = parseLong(retryAfter);
+            if (seconds != null) {
+                return Math.max(0, seconds * 1000);
+            }
+            Date date = DateUtils.parseDate(retryAfter);
+            if (date != null) {
+                return Math.max(0, date.getTime() - System.currentTimeMillis());
+            }
+        }
+
+        return getRateLimitResetMillis(response);
+    }
+
+    /**
+     * Longest reset time among exhausted request/token windows, or -1 when none is exhausted
+     */
+    public static long getRateLimitResetMillis(HttpResponse response) {
+        long wait = -1;
+        for (String window : new String[] {"requests", "tokens"}) {
+            Long remaining = parseLong(headerValue(response, "x-ratelimit-remaining-" + window));
+            if (remaining != null && remaining <= 0) {
+                wait = Math.max(wait, parseDurationMillis(headerValue(response, "x-ratelimit-reset-" + window)));
+            }
+        }
+        return wait;
+    }
+
+    /**
+     * Parse OpenAI reset durations such as "1s", "6m0s", "250ms" or "1h2m3.5s"
+     * @return Milliseconds, or -1 when the value cannot be parsed
+     */
+    static long parseDurationMillis(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return -1;
+        }
+
+        Matcher matcher = DURATION_PART.matcher(value.trim());
+        double millis = 0;
+        int end = 0;
+        while (matcher.find()) {
+            if (matcher.start() != end) {
+                return -1;
+            }
+            double amount = Double.parseDouble(matcher.group(1));
+            switch (matcher.group(2)) {
+                case "h":
+                    millis += amount * 3_600_000;
+                    break;
+                case "m":
+                    millis += amount * 60_000;
+                    break;
+                case "s":
+                    millis += amount * 1_000;
+                    break;
+                default:
+                    millis += amount;
+            }
+            end = matcher.end();
+        }
+        return end == value.trim().length() && end > 0 ? (long) Math.ceil(millis) : -1;
+    }
+
+    private static String headerValue(HttpResponse response, String name) {
+        Header header = response.getFirstHeader(name);
+        return header != null ? header.getValue().trim() : null;
+    }
+
+    private static Long parseLong(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
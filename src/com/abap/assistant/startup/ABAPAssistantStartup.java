@@ -1,7 +1,10 @@
 package com.abap.assistant.startup;
 
 import org.eclipse.ui.IStartup;
+import org.eclipse.ui.IWorkbench;
+import org.eclipse.ui.PlatformUI;
 
+import com.abap.assistant.services.LiveCodeModelManager;
 import com.abap.assistant.utils.ConfigurationManager;
 
 /**
@@ -15,6 +18,8 @@ public class ABAPAssistantStartup implements IStartup {
         ConfigurationManager.getInstance();
         
         // Register any necessary listeners
+        IWorkbench workbench = PlatformUI.getWorkbench();
+        workbench.getDisplay().asyncExec(() -> LiveCodeModelManager.getInstance().start(workbench));
         
         System.out.println("ABAP Assistant Plugin started successfully!");
     }
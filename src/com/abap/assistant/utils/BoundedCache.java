@@ -0,0 +1,138 @@
+package com.abap.assistant.utils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * Thread-safe cache bounded by the total weight of its values rather than their count
+ * Evicts least recently used (LRU) or oldest inserted (FIFO) entries and counts hits, misses and evictions
+ */
+public class BoundedCache<K, V> {
+
+    public enum EvictionPolicy {
+        LRU,
+        FIFO;
+
+        /**
+         * Parse a configured policy name, falling back to LRU
+         */
+        public static EvictionPolicy fromName(String name) {
+            for (EvictionPolicy policy : values()) {
+                if (policy.name().equalsIgnoreCase(name)) {
+                    return policy;
+                }
+            }
+            return LRU;
+        }
+    }
+
+    private final long maxWeight;
+    private final EvictionPolicy policy;
+    private final ToLongFunction<V> weigher;
+    private final LinkedHashMap<K, Weighted<V>> entries;
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public BoundedCache(long maxWeight, EvictionPolicy policy, ToLongFunction<V> weigher) {
+        this.maxWeight = maxWeight;
+        this.policy = policy;
+        this.weigher = weigher;
+        // Access order moves an entry to the tail on every get, which is exactly LRU
+        this.entries = new LinkedHashMap<>(16, 0.75f, policy == EvictionPolicy.LRU);
+    }
+
+    public synchronized V get(K key) {
+        Weighted<V> entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    /**
+     * Store a value, evicting from the head until the cache fits again
+     * A value heavier than the whole cache is not stored and evicts nothing, only the key's previous value
+     */
+    public synchronized void put(K key, V value) {
+        long valueWeight = Math.max(0, weigher.applyAsLong(value));
+        Weighted<V> previous = entries.remove(key);
+        if (previous != null) {
+            weight -= previous.weight;
+        }
+        if (valueWeight > maxWeight) {
+            return;
+        }
+        entries.put(key, new Weighted<>(value, valueWeight));
+        weight += valueWeight;
+
+        Iterator<Weighted<V>> eldest = entries.values().iterator();
+        while (weight > maxWeight && eldest.hasNext()) {
+            weight -= eldest.next().weight;
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized V remove(K key) {
+        Weighted<V> entry = entries.remove(key);
+        if (entry == null) {
+            return null;
+        }
+        weight -= entry.weight;
+        return entry.value;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Get summary of size and hit/miss/eviction counters
+     */
+    public synchronized String getStatsSummary() {
+        long lookups = hits + misses;
+        return String.format("%s cache: %d entries, %d/%d KB, %d hits / %d misses (%.0f%%), %d evictions",
+            policy, entries.size(), weight / 1024, maxWeight / 1024, hits, misses,
+            lookups > 0 ? 100.0 * hits / lookups : 0.0, evictions);
+    }
+
+    private static final class Weighted<V> {
+        final V value;
+        final long weight;
+
+        Weighted(V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
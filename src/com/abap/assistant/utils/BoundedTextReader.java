@@ -0,0 +1,251 @@
+package com.abap.assistant.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads at most a character budget of a text file, whatever the file size, detecting its encoding
+ * Only the bytes of the requested windows are read (positional channel reads, no mapping, so Windows
+ * does not keep the file locked); large logs can be sampled as head, middle and tail windows
+ */
+public final class BoundedTextReader {
+
+    // Worst case of UTF-8; a byte window this many times the character budget always holds enough text
+    private static final int MAX_BYTES_PER_CHAR = 4;
+    // SAP GUI downloads and most Windows tools write ANSI files when not UTF-8
+    private static final Charset FALLBACK_CHARSET = Charset.forName("windows-1252");
+    private static final int DETECTION_BYTES = 4096;
+    // Room kept for the two "omitted" markers of a sampled read
+    private static final int MARKER_RESERVE = 120;
+
+    private BoundedTextReader() {
+    }
+
+    /**
+     * First maxChars characters of the file
+     */
+    public static String readHead(Path path, int maxChars) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return readHead(channel, maxChars);
+        }
+    }
+
+    private static String readHead(FileChannel channel, int maxChars) throws IOException {
+        ByteBuffer head = read(channel, 0, (long) maxChars * MAX_BYTES_PER_CHAR);
+        boolean wholeFile = head.limit() == channel.size();
+        Encoding encoding = detect(head, wholeFile);
+        head.position(encoding.bomLength);
+        return decode(head, encoding.charset, maxChars, wholeFile);
+    }
+
+    /**
+     * Whole file if it fits in maxChars, otherwise the start, the middle and the end of it with markers
+     * for the omitted parts; the result never exceeds maxChars characters
+     */
+    public static String readSampled(Path path, int maxChars) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            // Every supported encoding takes at least one byte per character
+            if (size <= maxChars) {
+                return readHead(channel, maxChars);
+            }
+
+            // One character over the budget tells whether the file fits after all
+            ByteBuffer bytes = read(channel, 0, (long) (maxChars + 1) * MAX_BYTES_PER_CHAR);
+            boolean wholeFile = bytes.limit() == size;
+            Encoding encoding = detect(bytes, wholeFile);
+            bytes.position(encoding.bomLength);
+            String text = decode(bytes, encoding.charset, maxChars + 1, wholeFile);
+            if (text.length() <= maxChars) {
+                return text;
+            }
+            if (maxChars <= MARKER_RESERVE * 2) {
+                // Too small for three separate windows
+                return text.substring(0, maxChars);
+            }
+
+            int available = maxChars - MARKER_RESERVE;
+            int headChars = available / 2;
+            int middleChars = available / 4;
+            int tailChars = available - headChars - middleChars;
+
+            String headText = trimToLastLine(text.substring(0, headChars));
+            long headEnd = encoding.bomLength + byteLength(headText, encoding);
+
+            // Windows never start before the text already taken, so a file just over the budget is not repeated
+            long middleBytes = (long) middleChars * MAX_BYTES_PER_CHAR;
+            Window middle = window(channel, encoding, Math.max(headEnd, size / 2 - middleBytes / 2), middleBytes);
+            // Keep the centre of the decoded window, cut at line boundaries
+            int middleFrom = Math.max(0, (middle.text.length() - middleChars) / 2);
+            String centre = middle.text.substring(middleFrom, Math.min(middle.text.length(), middleFrom + middleChars));
+            String middleText = trimToFirstLine(centre);
+            middleFrom += centre.length() - middleText.length();
+            middleText = trimToLastLine(middleText);
+            long middleStart = middle.start + byteLength(middle.text.substring(0, middleFrom), encoding);
+            long middleEnd = middleStart + byteLength(middleText, encoding);
+
+            long tailStart = Math.max(middleEnd, size - (long) tailChars * MAX_BYTES_PER_CHAR);
+            Window tail = window(channel, encoding, tailStart, size - tailStart);
+            String tailText = trimToFirstLine(tail.text.substring(Math.max(0, tail.text.length() - tailChars)));
+
+            StringBuilder sampled = new StringBuilder(maxChars);
+            sampled.append(headText);
+            sampled.append(omitted(middleStart - headEnd));
+            sampled.append(middleText);
+            sampled.append(omitted(size - byteLength(tailText, encoding) - middleEnd));
+            sampled.append(tailText);
+            return sampled.toString();
+        }
+    }
+
+    /**
+     * Decoded bytes from start, moved forward onto the first whole character
+     */
+    private static Window window(FileChannel channel, Encoding encoding, long start, long length) throws IOException {
+        long aligned = encoding.align(start);
+        ByteBuffer bytes = read(channel, aligned, length);
+        if (encoding.charset == StandardCharsets.UTF_8) {
+            // Skip continuation bytes of a character that started before the window
+            while (bytes.hasRemaining() && (bytes.get(bytes.position()) & 0xC0) == 0x80) {
+                bytes.get();
+                aligned++;
+            }
+        }
+        String text = decode(bytes, encoding.charset, bytes.remaining(), aligned + bytes.remaining() >= channel.size());
+        return new Window(aligned, text);
+    }
+
+    private static long byteLength(String text, Encoding encoding) {
+        return text.getBytes(encoding.charset).length;
+    }
+
+    private static String omitted(long bytes) {
+        return bytes < 1024
+            ? String.format("%n%n[... %d bytes omitted ...]%n%n", Math.max(0, bytes))
+            : String.format("%n%n[... about %d KB omitted ...]%n%n", bytes / 1024);
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, long length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.max(0, Math.min(length, channel.size() - position)));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Decode until the bytes or the character budget run out; undecodable bytes become U+FFFD
+     */
+    private static String decode(ByteBuffer bytes, Charset charset, int maxChars, boolean endOfInput) {
+        CharsetDecoder decoder = charset.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer chars = CharBuffer.allocate(maxChars);
+        CoderResult result = decoder.decode(bytes, chars, endOfInput);
+        if (endOfInput && result.isUnderflow()) {
+            decoder.flush(chars);
+        }
+        chars.flip();
+        return chars.toString();
+    }
+
+    private static String trimToFirstLine(String text) {
+        int newline = text.indexOf('\n');
+        return newline >= 0 && newline < text.length() / 2 ? text.substring(newline + 1) : text;
+    }
+
+    private static String trimToLastLine(String text) {
+        int newline = text.lastIndexOf('\n');
+        return newline >= text.length() / 2 ? text.substring(0, newline + 1) : text;
+    }
+
+    /**
+     * Byte order mark first, then NUL patterns for BOM-less UTF-16, then a strict UTF-8 check
+     */
+    static Encoding detect(ByteBuffer head, boolean wholeFile) {
+        int length = head.limit();
+        if (length >= 3 && (head.get(0) & 0xFF) == 0xEF && (head.get(1) & 0xFF) == 0xBB && (head.get(2) & 0xFF) == 0xBF) {
+            return new Encoding(StandardCharsets.UTF_8, 3);
+        }
+        if (length >= 2 && (head.get(0) & 0xFF) == 0xFF && (head.get(1) & 0xFF) == 0xFE) {
+            return new Encoding(StandardCharsets.UTF_16LE, 2);
+        }
+        if (length >= 2 && (head.get(0) & 0xFF) == 0xFE && (head.get(1) & 0xFF) == 0xFF) {
+            return new Encoding(StandardCharsets.UTF_16BE, 2);
+        }
+
+        int sample = Math.min(length, DETECTION_BYTES) & ~1;
+        int evenZeros = 0;
+        int oddZeros = 0;
+        for (int i = 0; i < sample; i += 2) {
+            evenZeros += head.get(i) == 0 ? 1 : 0;
+            oddZeros += head.get(i + 1) == 0 ? 1 : 0;
+        }
+        // Mostly-ASCII UTF-16 has a NUL in every other byte
+        if (sample > 0 && oddZeros > sample / 6 && evenZeros == 0) {
+            return new Encoding(StandardCharsets.UTF_16LE, 0);
+        }
+        if (sample > 0 && evenZeros > sample / 6 && oddZeros == 0) {
+            return new Encoding(StandardCharsets.UTF_16BE, 0);
+        }
+
+        CharsetDecoder strict = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+        ByteBuffer bytes = head.duplicate();
+        bytes.position(0);
+        CharBuffer chars = CharBuffer.allocate(1024);
+        while (true) {
+            // A character cut by the end of a partial read is an underflow, not an error
+            CoderResult result = strict.decode(bytes, chars, wholeFile);
+            if (result.isError()) {
+                return new Encoding(FALLBACK_CHARSET, 0);
+            }
+            if (result.isUnderflow()) {
+                return new Encoding(StandardCharsets.UTF_8, 0);
+            }
+            chars.clear();
+        }
+    }
+
+    private static final class Window {
+        final long start;
+        final String text;
+
+        Window(long start, String text) {
+            this.start = start;
+            this.text = text;
+        }
+    }
+
+    static final class Encoding {
+        final Charset charset;
+        final int bomLength;
+
+        Encoding(Charset charset, int bomLength) {
+            this.charset = charset;
+            this.bomLength = bomLength;
+        }
+
+        /**
+         * Move a window start onto a code unit boundary
+         */
+        long align(long offset) {
+            long aligned = Math.max(bomLength, offset);
+            boolean utf16 = charset == StandardCharsets.UTF_16LE || charset == StandardCharsets.UTF_16BE;
+            return utf16 ? aligned - ((aligned - bomLength) & 1) : aligned;
+        }
+    }
+}
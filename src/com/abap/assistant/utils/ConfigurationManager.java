@@ -12,11 +12,32 @@ public class ConfigurationManager {
     
     // Configuration keys
     private static final String API_KEY = "openai_api_key";
+    private static final String API_URL = "openai_api_url";
     private static final String MODEL = "gpt_model";
     private static final String MAX_TOKENS = "max_tokens";
     private static final String TEMPERATURE = "temperature";
     private static final String ENTERPRISE_AUDIT = "enterprise_audit";
     private static final String AUTO_SAVE = "auto_save";
+    private static final String STREAMING = "streaming_responses";
+    private static final String HISTORY_TOKEN_BUDGET = "history_token_budget";
+    private static final String RESPONSE_CACHE = "response_cache";
+    private static final String RESPONSE_CACHE_TTL = "response_cache_ttl_hours";
+    private static final String RESPONSE_CACHE_MAX_DISK = "response_cache_max_disk_mb";
+    
+    // HTTP connection settings
+    private static final String HTTP_CONNECT_TIMEOUT = "http_connect_timeout_ms";
+    private static final String HTTP_READ_TIMEOUT = "http_read_timeout_ms";
+    private static final String HTTP_MAX_CONNECTIONS = "http_max_connections";
+    private static final String HTTP_MAX_CONNECTIONS_PER_ROUTE = "http_max_connections_per_route";
+    private static final String HTTP_IDLE_EVICTION = "http_idle_eviction_seconds";
+    private static final String MAX_CONCURRENT_REQUESTS = "max_concurrent_requests";
+    private static final String RETRY_MAX_ATTEMPTS = "retry_max_attempts";
+    private static final String RETRY_BASE_DELAY = "retry_base_delay_ms";
+    private static final String RETRY_MAX_DELAY = "retry_max_delay_ms";
+    private static final String RATE_LIMIT_RPM = "rate_limit_requests_per_minute";
+    private static final String RATE_LIMIT_BURST = "rate_limit_burst";
+    private static final String CODE_CONTEXT_CACHE_MB = "code_context_cache_mb";
+    private static final String CODE_CONTEXT_CACHE_POLICY = "code_context_cache_policy";
     
     // ABAP Modification Marker Templates
     private static final String MOD_BEGIN_TEMPLATE = "mod_begin_template";
@@ -24,10 +45,31 @@ public class ConfigurationManager {
     private static final String INS_BEGIN_TEMPLATE = "ins_begin_template";
     private static final String INS_END_TEMPLATE = "ins_end_template";
     
+    // System properties for running outside the IDE (benchmarks, local stub server)
+    public static final String API_URL_PROPERTY = "abap.assistant.openai.url";
+    public static final String PREFERENCES_NODE_PROPERTY = "abap.assistant.prefs.node";
+    
     // Default values - Optimized for ABAP development
+    private static final String DEFAULT_API_URL = "https://api.openai.com/v1/chat/completions";
     private static final String DEFAULT_MODEL = "gpt-4";
     private static final int DEFAULT_MAX_TOKENS = 8000;  // Optimal for complete ABAP code responses
     private static final double DEFAULT_TEMPERATURE = 0.0;  // Deterministic responses for code
+    private static final int DEFAULT_HISTORY_TOKEN_BUDGET = 6000;  // Prompt budget for conversation history
+    private static final int DEFAULT_RESPONSE_CACHE_TTL = 24 * 7;
+    private static final int DEFAULT_RESPONSE_CACHE_MAX_DISK = 50;
+    private static final int DEFAULT_HTTP_CONNECT_TIMEOUT = 10000;
+    private static final int DEFAULT_HTTP_READ_TIMEOUT = 120000;  // Long completions can take minutes
+    private static final int DEFAULT_HTTP_MAX_CONNECTIONS = 20;
+    private static final int DEFAULT_HTTP_MAX_CONNECTIONS_PER_ROUTE = 10;
+    private static final int DEFAULT_HTTP_IDLE_EVICTION = 30;
+    private static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 4;
+    private static final int DEFAULT_RETRY_MAX_ATTEMPTS = 4;
+    private static final int DEFAULT_RETRY_BASE_DELAY = 1000;
+    private static final int DEFAULT_RETRY_MAX_DELAY = 30000;
+    private static final int DEFAULT_RATE_LIMIT_RPM = 60;  // Per IDE, 0 disables the limiter
+    private static final int DEFAULT_RATE_LIMIT_BURST = 5;
+    private static final int DEFAULT_CODE_CONTEXT_CACHE_MB = 32;
+    private static final String DEFAULT_CODE_CONTEXT_CACHE_POLICY = "LRU";
     
     // Default ABAP modification templates with placeholders
     // {TICKET} = ticket number, {USER} = username, {DATE} = current date
@@ -37,7 +79,11 @@ public class ConfigurationManager {
     private static final String DEFAULT_INS_END = "*END INS {TICKET} {USER} {DATE}";
     
     private ConfigurationManager() {
-        prefs = Preferences.userNodeForPackage(ConfigurationManager.class);
+        // A separate node keeps benchmark settings away from the user's preferences
+        String node = System.getProperty(PREFERENCES_NODE_PROPERTY);
+        prefs = node != null && !node.trim().isEmpty()
+            ? Preferences.userRoot().node(node.trim())
+            : Preferences.userNodeForPackage(ConfigurationManager.class);
     }
     
     public static ConfigurationManager getInstance() {
@@ -60,6 +106,23 @@ public class ConfigurationManager {
         }
     }
     
+    // Chat completions endpoint - system property overrides the preference
+    public String getApiUrl() {
+        String override = System.getProperty(API_URL_PROPERTY);
+        if (override != null && !override.trim().isEmpty()) {
+            return override.trim();
+        }
+        return prefs.get(API_URL, DEFAULT_API_URL);
+    }
+    
+    public void setApiUrl(String apiUrl) {
+        if (apiUrl != null && !apiUrl.trim().isEmpty()) {
+            prefs.put(API_URL, apiUrl.trim());
+        } else {
+            prefs.remove(API_URL);
+        }
+    }
+    
     // Model configuration
     public String getModel() {
         return prefs.get(MODEL, DEFAULT_MODEL);
@@ -87,6 +150,114 @@ public class ConfigurationManager {
         prefs.putDouble(TEMPERATURE, temperature);
     }
     
+    // Conversation history budget (prompt tokens per request)
+    public int getHistoryTokenBudget() {
+        return prefs.getInt(HISTORY_TOKEN_BUDGET, DEFAULT_HISTORY_TOKEN_BUDGET);
+    }
+    
+    public void setHistoryTokenBudget(int tokens) {
+        prefs.putInt(HISTORY_TOKEN_BUDGET, tokens);
+    }
+    
+    // Response cache for deterministic prompts
+    public boolean isResponseCacheEnabled() {
+        return prefs.getBoolean(RESPONSE_CACHE, true);
+    }
+    
+    public void setResponseCacheEnabled(boolean enabled) {
+        prefs.putBoolean(RESPONSE_CACHE, enabled);
+    }
+    
+    public int getResponseCacheTtlHours() {
+        return prefs.getInt(RESPONSE_CACHE_TTL, DEFAULT_RESPONSE_CACHE_TTL);
+    }
+    
+    public int getResponseCacheMaxDiskMB() {
+        return prefs.getInt(RESPONSE_CACHE_MAX_DISK, DEFAULT_RESPONSE_CACHE_MAX_DISK);
+    }
+    
+    // HTTP connection pool settings
+    public int getHttpConnectTimeoutMillis() {
+        return prefs.getInt(HTTP_CONNECT_TIMEOUT, DEFAULT_HTTP_CONNECT_TIMEOUT);
+    }
+    
+    public void setHttpConnectTimeoutMillis(int timeoutMillis) {
+        prefs.putInt(HTTP_CONNECT_TIMEOUT, timeoutMillis);
+    }
+    
+    public int getHttpReadTimeoutMillis() {
+        return prefs.getInt(HTTP_READ_TIMEOUT, DEFAULT_HTTP_READ_TIMEOUT);
+    }
+    
+    public void setHttpReadTimeoutMillis(int timeoutMillis) {
+        prefs.putInt(HTTP_READ_TIMEOUT, timeoutMillis);
+    }
+    
+    public int getHttpMaxConnections() {
+        return prefs.getInt(HTTP_MAX_CONNECTIONS, DEFAULT_HTTP_MAX_CONNECTIONS);
+    }
+    
+    public int getHttpMaxConnectionsPerRoute() {
+        return prefs.getInt(HTTP_MAX_CONNECTIONS_PER_ROUTE, DEFAULT_HTTP_MAX_CONNECTIONS_PER_ROUTE);
+    }
+    
+    public int getHttpIdleEvictionSeconds() {
+        return prefs.getInt(HTTP_IDLE_EVICTION, DEFAULT_HTTP_IDLE_EVICTION);
+    }
+    
+    // Streaming responses in the chat view
+    public boolean isStreamingEnabled() {
+        return prefs.getBoolean(STREAMING, true);
+    }
+    
+    public void setStreamingEnabled(boolean enabled) {
+        prefs.putBoolean(STREAMING, enabled);
+    }
+    
+    // Upper bound for parallel AI requests
+    public int getMaxConcurrentRequests() {
+        return prefs.getInt(MAX_CONCURRENT_REQUESTS, DEFAULT_MAX_CONCURRENT_REQUESTS);
+    }
+    
+    // Retry of transient API failures (429/5xx, connection errors)
+    public int getRetryMaxAttempts() {
+        return prefs.getInt(RETRY_MAX_ATTEMPTS, DEFAULT_RETRY_MAX_ATTEMPTS);
+    }
+    
+    public void setRetryMaxAttempts(int attempts) {
+        prefs.putInt(RETRY_MAX_ATTEMPTS, attempts);
+    }
+    
+    public int getRetryBaseDelayMillis() {
+        return prefs.getInt(RETRY_BASE_DELAY, DEFAULT_RETRY_BASE_DELAY);
+    }
+    
+    public int getRetryMaxDelayMillis() {
+        return prefs.getInt(RETRY_MAX_DELAY, DEFAULT_RETRY_MAX_DELAY);
+    }
+    
+    // Client-side rate limit shared by all requests
+    public int getRateLimitRequestsPerMinute() {
+        return prefs.getInt(RATE_LIMIT_RPM, DEFAULT_RATE_LIMIT_RPM);
+    }
+    
+    public void setRateLimitRequestsPerMinute(int requestsPerMinute) {
+        prefs.putInt(RATE_LIMIT_RPM, requestsPerMinute);
+    }
+    
+    public int getRateLimitBurst() {
+        return prefs.getInt(RATE_LIMIT_BURST, DEFAULT_RATE_LIMIT_BURST);
+    }
+    
+    // In-memory cache of code analysis results (LRU or FIFO)
+    public int getCodeContextCacheMB() {
+        return prefs.getInt(CODE_CONTEXT_CACHE_MB, DEFAULT_CODE_CONTEXT_CACHE_MB);
+    }
+    
+    public String getCodeContextCachePolicy() {
+        return prefs.get(CODE_CONTEXT_CACHE_POLICY, DEFAULT_CODE_CONTEXT_CACHE_POLICY);
+    }
+    
     // Enterprise features
     public boolean isEnterpriseAuditEnabled() {
         return prefs.getBoolean(ENTERPRISE_AUDIT, true);
@@ -183,11 +354,30 @@ public class ConfigurationManager {
      * Reset to defaults
      */
     public void resetToDefaults() {
+        prefs.remove(API_URL);
         prefs.remove(MODEL);
         prefs.remove(MAX_TOKENS);
         prefs.remove(TEMPERATURE);
         prefs.remove(ENTERPRISE_AUDIT);
         prefs.remove(AUTO_SAVE);
+        prefs.remove(STREAMING);
+        prefs.remove(HISTORY_TOKEN_BUDGET);
+        prefs.remove(RESPONSE_CACHE);
+        prefs.remove(RESPONSE_CACHE_TTL);
+        prefs.remove(RESPONSE_CACHE_MAX_DISK);
+        prefs.remove(HTTP_CONNECT_TIMEOUT);
+        prefs.remove(HTTP_READ_TIMEOUT);
+        prefs.remove(HTTP_MAX_CONNECTIONS);
+        prefs.remove(HTTP_MAX_CONNECTIONS_PER_ROUTE);
+        prefs.remove(HTTP_IDLE_EVICTION);
+        prefs.remove(MAX_CONCURRENT_REQUESTS);
+        prefs.remove(RETRY_MAX_ATTEMPTS);
+        prefs.remove(RETRY_BASE_DELAY);
+        prefs.remove(RETRY_MAX_DELAY);
+        prefs.remove(RATE_LIMIT_RPM);
+        prefs.remove(RATE_LIMIT_BURST);
+        prefs.remove(CODE_CONTEXT_CACHE_MB);
+        prefs.remove(CODE_CONTEXT_CACHE_POLICY);
         prefs.remove(MOD_BEGIN_TEMPLATE);
         prefs.remove(MOD_END_TEMPLATE);
         prefs.remove(INS_BEGIN_TEMPLATE);
@@ -0,0 +1,59 @@
+package com.abap.assistant.utils;
+
+import java.util.Arrays;
+
+/**
+ * Line-start offset table of a text, built once in a single pass
+ * Maps a character offset to its 1-based line number by binary search
+ */
+public class LineIndex {
+
+    private final int[] lineStarts;
+    private final int lineCount;
+    private final int length;
+
+    public LineIndex(CharSequence text) {
+        int[] starts = new int[Math.max(16, text.length() / 32)];
+        int count = 0;
+        starts[count++] = 0;
+
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                if (count == starts.length) {
+                    starts = Arrays.copyOf(starts, count * 2);
+                }
+                starts[count++] = i + 1;
+            }
+        }
+
+        this.lineStarts = starts;
+        this.lineCount = count;
+        this.length = text.length();
+    }
+
+    /**
+     * 1-based line number of the character at the given offset
+     */
+    public int getLineNumber(int offset) {
+        if (offset < 0 || offset > length) {
+            throw new IndexOutOfBoundsException("Offset " + offset + " outside text of length " + length);
+        }
+        int index = Arrays.binarySearch(lineStarts, 0, lineCount, offset);
+        // Not a line start: insertion point - 1 is the line containing the offset
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    /**
+     * Offset of the first character of a 1-based line
+     */
+    public int getLineStart(int lineNumber) {
+        if (lineNumber < 1 || lineNumber > lineCount) {
+            throw new IndexOutOfBoundsException("Line " + lineNumber + " outside 1.." + lineCount);
+        }
+        return lineStarts[lineNumber - 1];
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+}
@@ -0,0 +1,187 @@
+package com.abap.assistant.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Counts prompt tokens with the cl100k_base byte-pair encoding used by the GPT-3.5/GPT-4 models
+ * The vocabulary is read from resources/tokenizer/cl100k_base.tiktoken; without it counts are estimated
+ * per pre-tokenizer piece, which still tracks ABAP identifiers and accented text far better than chars / 4
+ */
+public class TokenCounter {
+
+    // PDE builds keep the resources folder, build.sh packs its content at the jar root
+    private static final String[] VOCABULARY_RESOURCES = {
+        "resources/tokenizer/cl100k_base.tiktoken", "tokenizer/cl100k_base.tiktoken"
+    };
+
+    // cl100k_base pre-tokenizer: contractions, words with one leading symbol, 1-3 digit groups, symbol runs, whitespace
+    private static final Pattern PIECE_PATTERN = Pattern.compile(
+        "(?i:'s|'t|'re|'ve|'m|'ll|'d)|[^\\r\\n\\p{L}\\p{N}]?\\p{L}+|\\p{N}{1,3}| ?[^\\s\\p{L}\\p{N}]+[\\r\\n]*"
+            + "|\\s*[\\r\\n]+|\\s+(?!\\S)|\\s+",
+        Pattern.UNICODE_CHARACTER_CLASS);
+
+    // Words repeat heavily across prompts; long pieces (whitespace runs, separators) are not worth keeping
+    private static final int MAX_CACHED_PIECE_LENGTH = 32;
+    private static final int MAX_CACHED_PIECES = 65536;
+
+    private static TokenCounter instance;
+
+    // Token bytes as ISO-8859-1 strings (one char per byte) mapped to their merge rank
+    private final Map<String, Integer> ranks;
+    private final Map<String, Integer> pieceCounts = new ConcurrentHashMap<>();
+
+    public static synchronized TokenCounter getInstance() {
+        if (instance == null) {
+            instance = new TokenCounter(loadVocabulary());
+        }
+        return instance;
+    }
+
+    TokenCounter(Map<String, Integer> ranks) {
+        this.ranks = ranks;
+    }
+
+    /**
+     * True when counts are exact cl100k_base counts rather than estimates
+     */
+    public boolean hasVocabulary() {
+        return ranks != null;
+    }
+
+    public int countTokens(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int count = 0;
+        Matcher matcher = PIECE_PATTERN.matcher(text);
+        while (matcher.find()) {
+            String piece = matcher.group();
+            if (piece.length() > MAX_CACHED_PIECE_LENGTH) {
+                count += countPiece(piece);
+                continue;
+            }
+            Integer cached = pieceCounts.get(piece);
+            if (cached == null) {
+                if (pieceCounts.size() >= MAX_CACHED_PIECES) {
+                    pieceCounts.clear();
+                }
+                cached = countPiece(piece);
+                pieceCounts.put(piece, cached);
+            }
+            count += cached;
+        }
+        return count;
+    }
+
+    private int countPiece(String piece) {
+        byte[] utf8 = piece.getBytes(StandardCharsets.UTF_8);
+        if (ranks == null) {
+            return estimatePiece(piece, utf8.length);
+        }
+        String bytes = new String(utf8, StandardCharsets.ISO_8859_1);
+        if (ranks.containsKey(bytes)) {
+            return 1;
+        }
+        return bytePairMerge(bytes);
+    }
+
+    /**
+     * Merge the lowest-ranked adjacent pair until no pair is in the vocabulary; returns the part count
+     */
+    private int bytePairMerge(String bytes) {
+        int length = bytes.length();
+        // Part i spans starts[i]..starts[i + 1]; pairRanks[i] is the rank of parts i and i + 1 merged
+        int[] starts = new int[length + 1];
+        int[] pairRanks = new int[length];
+        for (int i = 0; i <= length; i++) {
+            starts[i] = i;
+        }
+        int parts = length;
+        for (int i = 0; i + 1 < parts; i++) {
+            pairRanks[i] = rank(bytes, starts[i], starts[i + 2]);
+        }
+
+        while (parts > 1) {
+            int best = -1;
+            for (int i = 0; i + 1 < parts; i++) {
+                if (pairRanks[i] != Integer.MAX_VALUE && (best < 0 || pairRanks[i] < pairRanks[best])) {
+                    best = i;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            // Drop the boundary between parts best and best + 1
+            System.arraycopy(starts, best + 2, starts, best + 1, parts - best - 1);
+            System.arraycopy(pairRanks, best + 1, pairRanks, best, parts - best - 2);
+            parts--;
+            if (best + 1 < parts) {
+                pairRanks[best] = rank(bytes, starts[best], starts[best + 2]);
+            }
+            if (best > 0) {
+                pairRanks[best - 1] = rank(bytes, starts[best - 1], starts[best + 1]);
+            }
+        }
+        return parts;
+    }
+
+    private int rank(String bytes, int start, int end) {
+        Integer rank = ranks.get(bytes.substring(start, end));
+        return rank != null ? rank : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Without a vocabulary: common ASCII words are one token, longer ones split about every 6 letters,
+     * non-ASCII text (accents, umlauts, symbols) costs roughly a token per 2-3 UTF-8 bytes
+     */
+    private static int estimatePiece(String piece, int utf8Length) {
+        if (utf8Length == piece.length()) {
+            return Math.max(1, (piece.length() + 5) / 6);
+        }
+        return Math.max(1, (utf8Length + 2) / 3);
+    }
+
+    private static Map<String, Integer> loadVocabulary() {
+        ClassLoader loader = TokenCounter.class.getClassLoader();
+        for (String resource : VOCABULARY_RESOURCES) {
+            try (InputStream in = loader.getResourceAsStream(resource)) {
+                if (in != null) {
+                    return parseVocabulary(in);
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("Could not load tokenizer vocabulary " + resource + ": " + e.getMessage());
+            }
+        }
+        System.err.println("Tokenizer vocabulary not found, token counts are estimated");
+        return null;
+    }
+
+    /**
+     * tiktoken format: one "base64(token bytes) rank" pair per line
+     */
+    private static Map<String, Integer> parseVocabulary(InputStream in) throws IOException {
+        Map<String, Integer> ranks = new HashMap<>(140_000);
+        Base64.Decoder decoder = Base64.getDecoder();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.US_ASCII));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            int space = line.indexOf(' ');
+            if (space <= 0) {
+                continue;
+            }
+            byte[] token = decoder.decode(line.substring(0, space));
+            ranks.put(new String(token, StandardCharsets.ISO_8859_1), Integer.parseInt(line.substring(space + 1).trim()));
+        }
+        return ranks;
+    }
+}
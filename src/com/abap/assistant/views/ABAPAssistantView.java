@@ -17,10 +17,13 @@ import org.eclipse.swt.events.KeyEvent;
 import org.eclipse.ui.part.ViewPart;
 
 import com.abap.assistant.services.ChatGPTService;
-import com.abap.assistant.services.DocumentProcessorService;
 import com.abap.assistant.services.ContextCaptureService;
 import com.abap.assistant.services.DocumentContextManager;
+import com.abap.assistant.services.DocumentIngestPipeline;
+import com.abap.assistant.services.LiveCodeModel;
+import com.abap.assistant.services.LiveCodeModelManager;
 import com.abap.assistant.models.ChatMessage;
+import com.abap.assistant.utils.ConfigurationManager;
 
 import org.eclipse.swt.custom.StyledText;
 import org.eclipse.swt.dnd.*;
@@ -36,7 +39,12 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 
 import java.util.List;
+import java.util.Map;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
 
 /**
  * Main view for ABAP Assistant - provides chat interface and quick actions
@@ -62,10 +70,12 @@ public class ABAPAssistantView extends ViewPart {
     private Button quickErrorCheckButton;
     private Button deepAnalysisButton;
     private Label statusLabel;
+    private Label cacheStatsLabel;
+    private Label liveModelLabel;
+    private Consumer<LiveCodeModel> liveModelListener;
     private List<String> attachedFiles;
     
     private ChatGPTService chatService;
-    private DocumentProcessorService docProcessor;
     private ContextCaptureService contextCapture;
     private DocumentContextManager contextManager;
 
@@ -75,11 +85,31 @@ public class ABAPAssistantView extends ViewPart {
         createUI(parent);
         setupDragAndDrop();
         attachedFiles = new ArrayList<>();
+        
+        // Live structure of the ABAP editor being typed in
+        liveModelListener = model -> {
+            com.abap.assistant.models.CodeContext context = model.getContext();
+            String text = String.format("Live: %s - %d variables, %d dependencies (%.1f ms)",
+                model.getFileName(), context.getVariables().size(), context.getDependencies().size(),
+                model.getLastUpdateNanos() / 1_000_000.0);
+            parent.getDisplay().asyncExec(() -> {
+                if (!liveModelLabel.isDisposed()) {
+                    liveModelLabel.setText(text);
+                    liveModelLabel.getParent().layout();
+                }
+            });
+        };
+        LiveCodeModelManager.getInstance().addListener(liveModelListener);
+    }
+    
+    @Override
+    public void dispose() {
+        LiveCodeModelManager.getInstance().removeListener(liveModelListener);
+        super.dispose();
     }
     
     private void initializeServices() {
         chatService = new ChatGPTService();
-        docProcessor = new DocumentProcessorService();
         contextCapture = new ContextCaptureService();
         contextManager = new DocumentContextManager();
     }
@@ -187,7 +217,7 @@ public class ABAPAssistantView extends ViewPart {
     
     private void createStatusBar(Composite parent) {
         Composite statusComp = new Composite(parent, SWT.NONE);
-        GridLayout statusLayout = new GridLayout(1, false);
+        GridLayout statusLayout = new GridLayout(3, false);
         statusLayout.marginWidth = 5;
         statusLayout.marginHeight = 5;
         statusComp.setLayout(statusLayout);
@@ -197,6 +227,16 @@ public class ABAPAssistantView extends ViewPart {
         statusLabel.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
         statusLabel.setText("Status: Ready - Configure API key in ABAP Assistant menu");
         statusLabel.setForeground(parent.getDisplay().getSystemColor(SWT.COLOR_DARK_GREEN));
+        
+        liveModelLabel = new Label(statusComp, SWT.NONE);
+        liveModelLabel.setLayoutData(new GridData(SWT.END, SWT.CENTER, false, false));
+        liveModelLabel.setForeground(parent.getDisplay().getSystemColor(SWT.COLOR_DARK_GRAY));
+        
+        // Response cache hit/miss counters
+        cacheStatsLabel = new Label(statusComp, SWT.NONE);
+        cacheStatsLabel.setLayoutData(new GridData(SWT.END, SWT.CENTER, false, false));
+        cacheStatsLabel.setText(chatService.getCacheStats());
+        cacheStatsLabel.setForeground(parent.getDisplay().getSystemColor(SWT.COLOR_DARK_GRAY));
     }
     
     private void createQuickActionsPanel(Composite parent) {
@@ -345,9 +385,7 @@ public class ABAPAssistantView extends ViewPart {
             public void drop(DropTargetEvent event) {
                 if (FileTransfer.getInstance().isSupportedType(event.currentDataType)) {
                     String[] files = (String[]) event.data;
-                    for (String file : files) {
-                        processDroppedFile(file);
-                    }
+                    processDroppedFiles(Arrays.asList(files));
                 }
             }
         });
@@ -406,6 +444,11 @@ public class ABAPAssistantView extends ViewPart {
     private void sendAIRequestWithContext(String action, String prompt) {
         updateStatus("Sending request to ChatGPT with document context...");
         
+        if (ConfigurationManager.getInstance().isStreamingEnabled()) {
+            sendStreamingAIRequest(action, prompt);
+            return;
+        }
+        
         Job job = new Job("AI Request: " + action) {
             @Override
             protected IStatus run(IProgressMonitor monitor) {
@@ -414,25 +457,33 @@ public class ABAPAssistantView extends ViewPart {
                     ChatMessage response;
                     
                     // Use document context if available, otherwise use standard message
+                    // Cancelling the job aborts the HTTP request through the monitor
                     if (contextManager.hasContext()) {
-                        response = chatService.sendMessageWithDocumentContext(prompt, selectedCode, contextManager);
+                        String contextualQuery = contextManager.buildContextualQuery(prompt, selectedCode);
+                        response = chatService.sendMessageAsync(contextualQuery, monitor).join();
                         
                         PlatformUI.getWorkbench().getDisplay().asyncExec(() -> {
                             appendToChat("🤖 AI Assistant (" + action + "):\n" + response.getContent() + "\n\n");
-                            updateStatus("Response with document context (" + contextManager.getAvailableDocuments().size() + " docs)");
+                            updateStatus("Response with document context (" + contextManager.getAvailableDocuments().size() + " docs, "
+                                + chatService.getPromptStats() + ")");
                         });
                     } else {
-                        response = chatService.sendMessage(prompt);
+                        response = chatService.sendMessageAsync(prompt, monitor).join();
                         
                         PlatformUI.getWorkbench().getDisplay().asyncExec(() -> {
                             appendToChat("🤖 AI Assistant (" + action + "):\n" + response.getContent() + "\n\n");
-                            updateStatus("Response received");
+                            updateStatus("Response received (" + chatService.getPromptStats() + ")");
                         });
                     }
                     
                 } catch (Exception e) {
+                    Throwable cause = unwrap(e);
+                    if (cause instanceof CancellationException) {
+                        PlatformUI.getWorkbench().getDisplay().asyncExec(() -> updateStatus("Request cancelled"));
+                        return Status.CANCEL_STATUS;
+                    }
                     PlatformUI.getWorkbench().getDisplay().asyncExec(() -> {
-                        appendToChat("❌ Error: " + e.getMessage() + "\n\n");
+                        appendToChat("❌ Error: " + cause.getMessage() + "\n\n");
                         updateStatus("Error occurred");
                     });
                 }
@@ -442,6 +493,63 @@ public class ABAPAssistantView extends ViewPart {
         job.schedule();
     }
     
+    /**
+     * Send request with streamed response - tokens are rendered as they arrive
+     */
+    private void sendStreamingAIRequest(String action, String prompt) {
+        appendToChat("🤖 AI Assistant (" + action + "):\n");
+        StreamingChatRenderer renderer = new StreamingChatRenderer(chatDisplay.getDisplay(), chatDisplay);
+        
+        Job job = new Job("AI Request: " + action) {
+            @Override
+            protected IStatus run(IProgressMonitor monitor) {
+                try {
+                    String selectedCode = getSelectedCodeFromEditor();
+                    boolean withContext = contextManager.hasContext();
+                    
+                    // Final assembled message is added to history by the service
+                    String query = withContext
+                        ? contextManager.buildContextualQuery(prompt, selectedCode)
+                        : prompt;
+                    chatService.sendMessageStreamingAsync(query, renderer, monitor).join();
+                    
+                    renderer.finish();
+                    PlatformUI.getWorkbench().getDisplay().asyncExec(() -> {
+                        appendToChat("\n\n");
+                        updateStatus(withContext
+                            ? "Response with document context (" + contextManager.getAvailableDocuments().size() + " docs, "
+                                + chatService.getPromptStats() + ")"
+                            : "Response received (" + chatService.getPromptStats() + ")");
+                    });
+                    
+                } catch (Exception e) {
+                    renderer.finish();
+                    Throwable cause = unwrap(e);
+                    if (cause instanceof CancellationException) {
+                        PlatformUI.getWorkbench().getDisplay().asyncExec(() -> {
+                            appendToChat("\n⏹ Cancelled\n\n");
+                            updateStatus("Request cancelled");
+                        });
+                        return Status.CANCEL_STATUS;
+                    }
+                    PlatformUI.getWorkbench().getDisplay().asyncExec(() -> {
+                        appendToChat("\n❌ Error: " + cause.getMessage() + "\n\n");
+                        updateStatus("Error occurred");
+                    });
+                }
+                return Status.OK_STATUS;
+            }
+        };
+        job.schedule();
+    }
+    
+    /**
+     * Unwrap the failure of a joined future
+     */
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+    
     // Legacy method for Quick Actions - can be updated later to use context
     private void sendAIRequest(String action, String prompt) {
         sendAIRequestWithContext(action, prompt);
@@ -456,39 +564,59 @@ public class ABAPAssistantView extends ViewPart {
             String[] fileNames = dialog.getFileNames();
             String filterPath = dialog.getFilterPath();
             
+            List<String> fullPaths = new ArrayList<>();
             for (String fileName : fileNames) {
-                String fullPath = filterPath + System.getProperty("file.separator") + fileName;
-                processDroppedFile(fullPath);
+                fullPaths.add(filterPath + System.getProperty("file.separator") + fileName);
             }
+            processDroppedFiles(fullPaths);
         }
     }
     
-    private void processDroppedFile(String filePath) {
-        Job job = new Job("Processing document: " + filePath) {
+    /**
+     * Attach files and folders in one background job; the context changes once, when all are processed
+     */
+    private void processDroppedFiles(List<String> filePaths) {
+        String jobName = filePaths.size() == 1 ? "Processing document: " + filePaths.get(0)
+                                               : "Processing " + filePaths.size() + " documents";
+        Job job = new Job(jobName) {
             @Override
             protected IStatus run(IProgressMonitor monitor) {
-                try {
-                    String content = docProcessor.processDocument(filePath);
-                    attachedFiles.add(filePath);
-                    
-                    // Add to context manager for AI integration
-                    contextManager.addDocument(filePath, content);
-                    
-                    PlatformUI.getWorkbench().getDisplay().asyncExec(() -> {
-                        String contextSummary = contextManager.getContextSummary();
-                        appendToChat("📎 Attached: " + filePath + "\nContent preview: " + content.substring(0, Math.min(200, content.length())) + "...\n");
-                        appendToChat("📊 " + contextSummary + "\n\n");
-                        updateStatus("📄 Document processed and added to context: " + filePath);
-                    });
+                DocumentIngestPipeline.Result result = new DocumentIngestPipeline(contextManager).ingest(filePaths, monitor);
+                
+                PlatformUI.getWorkbench().getDisplay().asyncExec(() -> {
+                    List<DocumentContextManager.PreparedDocument> documents = result.getDocuments();
+                    for (DocumentContextManager.PreparedDocument document : documents) {
+                        attachedFiles.add(document.getFilePath());
+                        String content = document.getContent();
+                        if (documents.size() == 1) {
+                            appendToChat("📎 Attached: " + document.getFilePath() + "\nContent preview: " + content.substring(0, Math.min(200, content.length())) + "...\n");
+                        } else {
+                            appendToChat("📎 Attached: " + document.getFilePath() + "\n");
+                        }
+                    }
+                    for (Map.Entry<String, String> failure : result.getFailures().entrySet()) {
+                        appendToChat("❌ Error processing file: " + failure.getKey() + " - " + failure.getValue() + "\n");
+                    }
+                    if (!documents.isEmpty()) {
+                        appendToChat("📊 " + contextManager.getContextSummary() + "\n\n");
+                    }
                     
-                } catch (Exception e) {
-                    PlatformUI.getWorkbench().getDisplay().asyncExec(() -> {
-                        updateStatus("❌ Error processing file: " + e.getMessage());
-                    });
-                }
-                return Status.OK_STATUS;
+                    if (result.isCancelled()) {
+                        updateStatus("Document processing cancelled, context unchanged");
+                    } else if (!result.getFailures().isEmpty()) {
+                        updateStatus("❌ Error processing " + result.getFailures().size() + " of "
+                            + (documents.size() + result.getFailures().size()) + " files");
+                    } else if (documents.size() == 1) {
+                        updateStatus("📄 Document processed and added to context: " + documents.get(0).getFilePath());
+                    } else {
+                        updateStatus("📄 " + documents.size() + " documents processed and added to context in "
+                            + result.getElapsedMillis() + " ms");
+                    }
+                });
+                return result.isCancelled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
             }
         };
+        job.setUser(filePaths.size() > 1);
         job.schedule();
     }
     
@@ -522,6 +650,10 @@ public class ABAPAssistantView extends ViewPart {
     
     private void updateStatus(String message) {
         statusLabel.setText(message);
+        // Connection reuse stats on hover
+        statusLabel.setToolTipText(chatService.getConnectionStats());
+        cacheStatsLabel.setText(chatService.getCacheStats());
+        cacheStatsLabel.getParent().layout();
     }
     
     /**
@@ -559,7 +691,7 @@ public class ABAPAssistantView extends ViewPart {
                         // Obtener contexto completo del proyecto
                         monitor.subTask("Analyzing project context...");
                         java.util.Map<String, com.abap.assistant.models.CodeContext> projectContext = 
-                            analysisService.analyzeCompleteProject();
+                            analysisService.analyzeCompleteProject(monitor);
                         monitor.worked(1);
                         
                         // Generar reporte detallado
@@ -604,7 +736,7 @@ public class ABAPAssistantView extends ViewPart {
                         
                         // Análisis con IA (opcional)
                         monitor.subTask("Preparing AI analysis...");
-                        String enhancedContext = analysisService.getEnhancedContextForAI(context.getFileName());
+                        String enhancedContext = analysisService.getEnhancedContextForAI(context.getFilePath());
                         monitor.worked(1);
                         
                         // Mostrar resultados en UI
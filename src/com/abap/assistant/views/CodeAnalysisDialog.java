@@ -9,6 +9,7 @@ import org.eclipse.swt.widgets.*;
 import com.abap.assistant.models.CodeContext;
 import com.abap.assistant.models.VariableInfo;
 import com.abap.assistant.models.DependencyInfo;
+import com.abap.assistant.services.CodeAnalysisService;
 
 /**
  * Diálogo para mostrar resultados del análisis profundo de código
@@ -71,6 +72,11 @@ public class CodeAnalysisDialog extends Dialog {
         reportText.setText(analysisReport);
         reportText.setFont(new org.eclipse.swt.graphics.Font(Display.getCurrent(), "Consolas", 10, SWT.NORMAL));
 
+        // Estado de las caches de análisis
+        Label cacheStats = new Label(reportComposite, SWT.WRAP);
+        cacheStats.setLayoutData(new GridData(SWT.FILL, SWT.BOTTOM, true, false));
+        cacheStats.setText("🗄️ " + CodeAnalysisService.getInstance().getCacheStatsSummary());
+
         reportTab.setControl(reportComposite);
     }
 
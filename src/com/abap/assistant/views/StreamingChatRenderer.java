@@ -0,0 +1,78 @@
+package com.abap.assistant.views;
+
+import java.util.function.Consumer;
+
+import org.eclipse.swt.custom.StyledText;
+import org.eclipse.swt.widgets.Display;
+
+/**
+ * Renders streamed response deltas into the chat display
+ * Deltas arrive on a background thread and are coalesced into batches so the
+ * display thread is updated at most once per flush interval instead of once per token
+ */
+public class StreamingChatRenderer implements Consumer<String> {
+
+    private static final int FLUSH_INTERVAL_MS = 50;
+
+    private final Display display;
+    private final StyledText chatDisplay;
+    private final StringBuilder pending = new StringBuilder();
+    private boolean flushScheduled;
+    private long lastFlushTime;
+
+    public StreamingChatRenderer(Display display, StyledText chatDisplay) {
+        this.display = display;
+        this.chatDisplay = chatDisplay;
+    }
+
+    /**
+     * Queue a delta - called from the background request thread
+     */
+    @Override
+    public void accept(String delta) {
+        long delay;
+        synchronized (pending) {
+            pending.append(delta);
+            if (flushScheduled) {
+                return; // Next flush picks this delta up
+            }
+            flushScheduled = true;
+            delay = Math.max(0, FLUSH_INTERVAL_MS - (System.currentTimeMillis() - lastFlushTime));
+        }
+
+        if (display.isDisposed()) {
+            return;
+        }
+        if (delay == 0) {
+            display.asyncExec(this::flush);
+        } else {
+            // timerExec must be called on the display thread
+            display.asyncExec(() -> display.timerExec((int) delay, this::flush));
+        }
+    }
+
+    /**
+     * Push any remaining text - call once the stream has completed
+     */
+    public void finish() {
+        if (!display.isDisposed()) {
+            display.asyncExec(this::flush);
+        }
+    }
+
+    private void flush() {
+        String batch;
+        synchronized (pending) {
+            batch = pending.toString();
+            pending.setLength(0);
+            flushScheduled = false;
+            lastFlushTime = System.currentTimeMillis();
+        }
+
+        if (batch.isEmpty() || chatDisplay.isDisposed()) {
+            return;
+        }
+        chatDisplay.append(batch);
+        chatDisplay.setTopIndex(chatDisplay.getLineCount() - 1);
+    }
+}